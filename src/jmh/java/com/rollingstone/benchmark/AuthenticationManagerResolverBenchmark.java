@@ -0,0 +1,73 @@
+package com.rollingstone.benchmark;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.rollingstone.config.DecoderCacheProperties;
+import com.rollingstone.security.IssuerAuthenticationManagerCache;
+import com.rollingstone.security.JwtHelper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationProvider;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+// Cost of turning a bearer token into an AuthenticationManager, excluding signature verification.
+// Compare gc.alloc.rate.norm between the two methods (run with -prof gc).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthenticationManagerResolverBenchmark {
+
+    private static final String ISSUER = "http://localhost/realms/bench";
+
+    private String token;
+    private JwtDecoder decoder;
+    private JwtAuthenticationConverter converter;
+    private IssuerAuthenticationManagerCache managers;
+
+    @Setup
+    public void setUp() throws JOSEException {
+        RSAKey rsaKey = new RSAKeyGenerator(2048).keyID("bench").generate();
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .issuer(ISSUER)
+                .subject("bench-user")
+                .expirationTime(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID("bench").build(), claims);
+        jwt.sign(new RSASSASigner(rsaKey));
+        token = jwt.serialize();
+
+        decoder = NimbusJwtDecoder.withPublicKey(rsaKey.toRSAPublicKey()).build();
+        converter = new JwtAuthenticationConverter();
+        managers = new IssuerAuthenticationManagerCache("bench", issuer -> decoder, converter,
+                new DecoderCacheProperties(), new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public AuthenticationManager providerManagerPerRequest() {
+        JwtHelper.extractIssuer(token);
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider(decoder);
+        provider.setJwtAuthenticationConverter(converter);
+        return new ProviderManager(provider);
+    }
+
+    @Benchmark
+    public AuthenticationManager cachedManager() {
+        return managers.get(JwtHelper.extractIssuer(token));
+    }
+}
@@ -0,0 +1,102 @@
+package com.rollingstone.benchmark;
+
+import com.rollingstone.config.AuthoritiesProperties;
+import com.rollingstone.config.DecoderCacheProperties;
+import com.rollingstone.config.JwksProperties;
+import com.rollingstone.config.TenantMetricsProperties;
+import com.rollingstone.config.TokenCacheProperties;
+import com.rollingstone.security.ClaimPathAuthoritiesConverter;
+import com.rollingstone.security.DynamicIssuerRegistry;
+import com.rollingstone.security.IssuerAuthenticationManagerCache;
+import com.rollingstone.security.MultiTenantDynamicJwtDecoderFactory;
+import com.rollingstone.security.StubOidcServer;
+import com.rollingstone.security.TenantAuthenticationManagerResolver;
+import com.rollingstone.security.TenantJwkSourceFactory;
+import com.rollingstone.security.TenantMetrics;
+import com.rollingstone.security.VerifiedTokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthenticationToken;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// The request path wired as in SecurityConfig: issuer extraction, registry check, cached manager,
+// signature verification against keys fetched from the local JWKS stub, claim validation and the
+// authorities converter. Run with -prof gc for allocation per request.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthenticationPipelineBenchmark {
+
+    private static final int TENANTS = 10;
+
+    @Param({"RS256", "ES256"})
+    public String algorithm;
+
+    @Param({"false", "true"})
+    public boolean tokenCache;
+
+    private StubOidcServer idp;
+    private ExecutorService executor;
+    private TenantAuthenticationManagerResolver resolver;
+    private MockHttpServletRequest request;
+    private String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        idp = StubOidcServer.start();
+        executor = Executors.newFixedThreadPool(2);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        DynamicIssuerRegistry registry = new DynamicIssuerRegistry();
+        for (int i = 0; i < TENANTS; i++) {
+            registry.register("tenant" + i, idp.issuer("tenant" + i));
+        }
+        TenantMetrics metrics = new TenantMetrics(registry, new TenantMetricsProperties(), meterRegistry);
+        MultiTenantDynamicJwtDecoderFactory decoderFactory = new MultiTenantDynamicJwtDecoderFactory(registry,
+                executor, new TenantJwkSourceFactory(new JwksProperties(), meterRegistry, executor),
+                new DecoderCacheProperties(), meterRegistry, metrics);
+
+        TokenCacheProperties tokenCacheProperties = new TokenCacheProperties();
+        tokenCacheProperties.setEnabled(tokenCache);
+        VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache(tokenCacheProperties, registry, meterRegistry);
+
+        JwtAuthenticationConverter authenticationConverter = new JwtAuthenticationConverter();
+        authenticationConverter.setJwtGrantedAuthoritiesConverter(
+                new ClaimPathAuthoritiesConverter(new AuthoritiesProperties(), registry));
+
+        IssuerAuthenticationManagerCache managers = new IssuerAuthenticationManagerCache("bench",
+                issuer -> verifiedTokenCache.decorate(metrics.instrument(issuer, decoderFactory.getDecoder(issuer))),
+                authenticationConverter, new DecoderCacheProperties(), meterRegistry);
+        resolver = new TenantAuthenticationManagerResolver(registry::resolveIssuer, managers, metrics);
+
+        token = idp.mint("tenant0", "ES256".equals(algorithm) ? idp.ecSigningKey() : idp.signingKey(),
+                claims -> BenchmarkTokens.claims(idp.issuer("tenant0")).getClaims().forEach(claims::claim));
+        request = new MockHttpServletRequest("GET", "/api/orders");
+        request.addHeader("Authorization", "Bearer " + token);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+        idp.close();
+    }
+
+    @Benchmark
+    public AuthenticationManager resolveManager() {
+        return resolver.resolve(request);
+    }
+
+    @Benchmark
+    public Authentication authenticate() {
+        return resolver.resolve(request).authenticate(new BearerTokenAuthenticationToken(token));
+    }
+}
@@ -0,0 +1,54 @@
+package com.rollingstone.benchmark;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Locally generated keys and tokens shaped like Keycloak access tokens; nothing leaves the JVM
+final class BenchmarkTokens {
+
+    private BenchmarkTokens() {
+    }
+
+    static JWK generateKey(String algorithm) throws JOSEException {
+        return switch (algorithm) {
+            case "RS256" -> new RSAKeyGenerator(2048).keyID("bench-rsa").generate();
+            case "ES256" -> new ECKeyGenerator(Curve.P_256).keyID("bench-ec").generate();
+            default -> throw new IllegalArgumentException("Unsupported algorithm: " + algorithm);
+        };
+    }
+
+    static JWTClaimsSet claims(String issuer) {
+        return new JWTClaimsSet.Builder()
+                .issuer(issuer)
+                .subject("bench-user")
+                .issueTime(new Date())
+                .expirationTime(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+                .claim("realm_access", Map.of("roles", List.of("offline_access", "uma_authorization", "orders.read")))
+                .claim("scope", "openid profile email")
+                .build();
+    }
+
+    static String sign(JWK key, JWTClaimsSet claims) throws JOSEException {
+        boolean ec = key instanceof ECKey;
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(ec ? JWSAlgorithm.ES256 : JWSAlgorithm.RS256)
+                .keyID(key.getKeyID()).build(), claims);
+        jwt.sign(ec ? new ECDSASigner((ECKey) key) : new RSASSASigner((RSAKey) key));
+        return jwt.serialize();
+    }
+}
@@ -0,0 +1,28 @@
+package com.rollingstone.benchmark;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+
+// Stands in for a request that spends most of its time waiting on a database or another service. Only
+// RequestThreadingBenchmark sets bench.downstream-latency, so other benchmarks booting the app never see it.
+@RestController
+@ConditionalOnProperty("bench.downstream-latency")
+public class BlockingDownstreamController {
+
+    private final Duration latency;
+
+    public BlockingDownstreamController(@Value("${bench.downstream-latency}") Duration latency) {
+        this.latency = latency;
+    }
+
+    @GetMapping("/bench/downstream")
+    public String downstream() throws InterruptedException {
+        Thread.sleep(latency.toMillis());
+        // Names the serving thread, so the benchmark can check which mode it is measuring
+        return Thread.currentThread().toString();
+    }
+}
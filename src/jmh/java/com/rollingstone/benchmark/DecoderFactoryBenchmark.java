@@ -0,0 +1,73 @@
+package com.rollingstone.benchmark;
+
+import com.rollingstone.config.DecoderCacheProperties;
+import com.rollingstone.config.JwksProperties;
+import com.rollingstone.config.TenantMetricsProperties;
+import com.rollingstone.security.DynamicIssuerRegistry;
+import com.rollingstone.security.MultiTenantDynamicJwtDecoderFactory;
+import com.rollingstone.security.StubOidcServer;
+import com.rollingstone.security.TenantJwkSourceFactory;
+import com.rollingstone.security.TenantMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Warm decoder lookup for issuers already built against the local OIDC/JWKS stub
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecoderFactoryBenchmark {
+
+    @Param({"10", "1000"})
+    public int tenants;
+
+    private StubOidcServer idp;
+    private ExecutorService executor;
+    private MultiTenantDynamicJwtDecoderFactory factory;
+    private String[] issuers;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        idp = StubOidcServer.start();
+        executor = Executors.newFixedThreadPool(4);
+        DynamicIssuerRegistry registry = new DynamicIssuerRegistry();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        factory = new MultiTenantDynamicJwtDecoderFactory(registry, executor,
+                new TenantJwkSourceFactory(new JwksProperties(), meterRegistry, executor),
+                new DecoderCacheProperties(), meterRegistry,
+                new TenantMetrics(registry, new TenantMetricsProperties(), meterRegistry));
+        issuers = new String[tenants];
+        for (int i = 0; i < tenants; i++) {
+            issuers[i] = idp.issuer("tenant" + i);
+            registry.register("tenant" + i, issuers[i]);
+        }
+        for (String issuer : issuers) {
+            factory.getDecoder(issuer);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+        idp.close();
+    }
+
+    @Benchmark
+    public JwtDecoder getDecoder(Cursor cursor) {
+        String issuer = issuers[cursor.next];
+        cursor.next = cursor.next + 1 == issuers.length ? 0 : cursor.next + 1;
+        return factory.getDecoder(issuer);
+    }
+}
@@ -0,0 +1,33 @@
+package com.rollingstone.benchmark;
+
+import com.nimbusds.jose.JOSEException;
+import com.rollingstone.security.JwtHelper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Parsing the bearer token far enough to read iss, once per request before any tenant lookup
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IssuerExtractionBenchmark {
+
+    @Param({"RS256", "ES256"})
+    public String algorithm;
+
+    private String token;
+
+    @Setup
+    public void setUp() throws JOSEException {
+        token = BenchmarkTokens.sign(BenchmarkTokens.generateKey(algorithm),
+                BenchmarkTokens.claims("http://localhost/realms/bench"));
+    }
+
+    @Benchmark
+    public String extractIssuer() {
+        return JwtHelper.extractIssuer(token);
+    }
+}
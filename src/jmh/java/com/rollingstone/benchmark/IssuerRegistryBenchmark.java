@@ -0,0 +1,56 @@
+package com.rollingstone.benchmark;
+
+import com.rollingstone.security.DynamicIssuerRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Per-request issuer checks against the registry, cycling through every registered issuer
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IssuerRegistryBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int tenants;
+
+    private DynamicIssuerRegistry registry;
+    private String[] issuers;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup
+    public void setUp() {
+        Map<String, String> issuersByTenant = new LinkedHashMap<>();
+        for (int i = 0; i < tenants; i++) {
+            issuersByTenant.put("tenant" + i, "https://idp.example.com/realms/tenant" + i);
+        }
+        registry = new DynamicIssuerRegistry();
+        registry.registerAll(issuersByTenant);
+        issuers = issuersByTenant.values().toArray(String[]::new);
+    }
+
+    @Benchmark
+    public String resolveIssuer(Cursor cursor) {
+        return registry.resolveIssuer(nextIssuer(cursor));
+    }
+
+    @Benchmark
+    public String resolveTenant(Cursor cursor) {
+        return registry.resolveTenant(nextIssuer(cursor));
+    }
+
+    private String nextIssuer(Cursor cursor) {
+        String issuer = issuers[cursor.next];
+        cursor.next = cursor.next + 1 == issuers.length ? 0 : cursor.next + 1;
+        return issuer;
+    }
+}
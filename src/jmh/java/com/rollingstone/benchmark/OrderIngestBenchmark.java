@@ -0,0 +1,83 @@
+package com.rollingstone.benchmark;
+
+import com.rollingstone.SpringBoot278SpringSecurity5Oauth2MultitenantRestlessApiResourceServerApplication;
+import com.rollingstone.model.OrderHeader;
+import com.rollingstone.service.OrderHeaderService;
+import com.rollingstone.service.OrderIngestService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.rollingstone.service.OrderFixtures.order;
+
+// Orders stored per second one save() (and one transaction) at a time, as POST /api/orders does, against
+// OrderIngestService's chunked, JDBC-batched path behind POST /api/orders/batch. Runs on the in-memory H2 of
+// the test profile, so it measures statement and transaction overhead rather than network round trips.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderIngestBenchmark {
+
+    private static final int ORDERS = 1000;
+    private static final int LINES_PER_ORDER = 3;
+
+    private ConfigurableApplicationContext context;
+    private OrderHeaderService orderHeaderService;
+    private OrderIngestService orderIngestService;
+    private JdbcTemplate jdbcTemplate;
+    private int run;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(SpringBoot278SpringSecurity5Oauth2MultitenantRestlessApiResourceServerApplication.class)
+                .profiles("test")
+                .properties("server.port=0")
+                .run();
+        orderHeaderService = context.getBean(OrderHeaderService.class);
+        orderIngestService = context.getBean(OrderIngestService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @TearDown(Level.Iteration)
+    public void truncate() {
+        jdbcTemplate.update("delete from order_line");
+        jdbcTemplate.update("delete from order_header");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public void saveOneAtATime() {
+        for (OrderHeader order : orders()) {
+            orderHeaderService.saveOrder(order);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public Object ingestInChunks() {
+        return orderIngestService.ingest(orders().iterator());
+    }
+
+    // Order numbers are unique, so each invocation gets fresh ones
+    private List<OrderHeader> orders() {
+        int prefix = run++;
+        List<OrderHeader> orders = new ArrayList<>(ORDERS);
+        for (int i = 0; i < ORDERS; i++) {
+            orders.add(order("B" + prefix + "-" + i, "C" + (i % 100), LINES_PER_ORDER));
+        }
+        return orders;
+    }
+}
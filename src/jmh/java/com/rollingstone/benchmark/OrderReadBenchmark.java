@@ -0,0 +1,78 @@
+package com.rollingstone.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rollingstone.SpringBoot278SpringSecurity5Oauth2MultitenantRestlessApiResourceServerApplication;
+import com.rollingstone.model.FieldSelection;
+import com.rollingstone.model.OrderHeaderView;
+import com.rollingstone.service.OrderHeaderService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+// One 500-order page read and written as JSON: managed OrderHeader entities (as before) against header view
+// records, in full and with three selected columns. Run with -prof gc for bytes allocated per page.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderReadBenchmark {
+
+    private static final int PAGE = 500;
+
+    private ConfigurableApplicationContext context;
+    private OrderHeaderService orderHeaderService;
+    private ObjectMapper objectMapper;
+    private FieldSelection allFields;
+    private FieldSelection threeFields;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(SpringBoot278SpringSecurity5Oauth2MultitenantRestlessApiResourceServerApplication.class)
+                .profiles("test")
+                .properties("server.port=0")
+                .run();
+        orderHeaderService = context.getBean(OrderHeaderService.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        allFields = FieldSelection.all(OrderHeaderView.class);
+        threeFields = FieldSelection.parse("orderNumber,orderStatus,orderTotal", OrderHeaderView.class);
+        // Read back with no JWT, so as the root tenant
+        context.getBean(JdbcTemplate.class).update("insert into order_header (tenant_id, order_id, order_number,"
+                + " customer_number, order_date, order_status, order_total, currency, shipping_method,"
+                + " shipping_address, billing_address, payment_method, created_by, created_at)"
+                + " select 'tenant01', \"X\", 'ORD-' || \"X\", 'C' || mod(\"X\", 10), current_timestamp, 'NEW', 10, 'USD', 'GROUND',"
+                + " '1 Main St', '1 Main St', 'CARD', 'loader', current_timestamp from system_range(1, " + PAGE + ")");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void entities() throws Exception {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), orderHeaderService.findOrders(null, PAGE, false));
+    }
+
+    @Benchmark
+    public void views() throws Exception {
+        write(allFields);
+    }
+
+    @Benchmark
+    public void selectedFields() throws Exception {
+        write(threeFields);
+    }
+
+    // As the controller does it: the page wrapped with its selection's filters
+    private void write(FieldSelection selection) throws Exception {
+        MappingJacksonValue body = selection.apply(orderHeaderService.findOrderViews(null, null, null, PAGE, selection));
+        objectMapper.writer(body.getFilters()).writeValue(OutputStream.nullOutputStream(), body.getValue());
+    }
+}
@@ -0,0 +1,144 @@
+package com.rollingstone.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.introspect.AnnotatedClass;
+import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
+import com.rollingstone.config.RestLessConfig;
+import com.rollingstone.model.OrderHeader;
+import com.rollingstone.model.OrderHeaderView;
+import com.rollingstone.model.OrderLine;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// One response page written as JSON by the hand-written order serializers against the reflective bean
+// serializers used before, optionally gzipped as Tomcat would. write:bytes is the uncompressed JSON rate in
+// bytes/s; with -prof gc, gc.alloc.rate.norm divided by the page's order count is the allocation per order.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderSerializationBenchmark {
+
+    // 500 header views (a default list page), or 100 orders with 5 lines each (a lines=true page)
+    @Param({"views", "ordersWithLines"})
+    public String payload;
+
+    @Param({"reflective", "handWritten"})
+    public String serializers;
+
+    @Param({"false", "true"})
+    public boolean gzip;
+
+    private ObjectMapper objectMapper;
+    private Object page;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Written {
+        public long bytes;
+    }
+
+    @Setup
+    public void setUp() {
+        objectMapper = new RestLessConfig().objectMapper();
+        if (serializers.equals("reflective")) {
+            // Class-level @JsonSerialize ignored: Jackson's bean serializers, as before OrderJson
+            objectMapper.setAnnotationIntrospector(new JacksonAnnotationIntrospector() {
+                @Override
+                public Object findSerializer(Annotated annotated) {
+                    return annotated instanceof AnnotatedClass ? null : super.findSerializer(annotated);
+                }
+            });
+        }
+        page = payload.equals("views") ? views(500) : orders(100, 5);
+    }
+
+    @Benchmark
+    public void write(Written written) throws IOException {
+        // writeValue closes the stream, which finishes the gzip stream and releases its Deflater
+        CountingOutputStream json = new CountingOutputStream(gzip
+                ? new GZIPOutputStream(OutputStream.nullOutputStream())
+                : OutputStream.nullOutputStream());
+        objectMapper.writeValue(json, page);
+        written.bytes += json.count;
+    }
+
+    private static List<OrderHeaderView> views(int count) {
+        List<OrderHeaderView> views = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime placed = LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(i * 17L);
+            views.add(new OrderHeaderView((long) i, "ORD-" + i, "C" + i % 10, placed, "NEW",
+                    BigDecimal.valueOf(1000 + i, 2), "USD", "GROUND", "1 Main St", "1 Main St", "CARD", "loader",
+                    placed, null, null, 0L));
+        }
+        return views;
+    }
+
+    private static List<OrderHeader> orders(int count, int linesPerOrder) {
+        List<OrderHeader> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime placed = LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(i * 17L);
+            OrderHeader order = new OrderHeader((long) i, "ORD-" + i, "C" + i % 10, placed, "NEW",
+                    BigDecimal.valueOf(1000 + i, 2), "USD", "GROUND", "1 Main St", "1 Main St", "CARD", "loader",
+                    placed, null, null, new ArrayList<>());
+            order.setVersion(0L);
+            for (int l = 1; l <= linesPerOrder; l++) {
+                OrderLine line = new OrderLine();
+                line.setOrderLineId((long) i * linesPerOrder + l);
+                line.setVersion(0L);
+                line.setOrderHeader(order);
+                line.setLineNumber(l);
+                line.setProductId("P" + l);
+                line.setProductDescription("Product " + l);
+                line.setQuantity(BigDecimal.valueOf(l));
+                line.setUom("EA");
+                line.setUnitPrice(BigDecimal.valueOf(250, 2));
+                line.setItemTotal(BigDecimal.valueOf(250L * l, 2));
+                line.setStatus("OPEN");
+                line.setCreatedBy("loader");
+                line.setCreatedAt(placed);
+                order.getOrderLines().add(line);
+            }
+            orders.add(order);
+        }
+        return orders;
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+
+        private final OutputStream target;
+        private long count;
+
+        private CountingOutputStream(OutputStream target) {
+            this.target = target;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            target.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            target.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            target.close();
+        }
+    }
+}
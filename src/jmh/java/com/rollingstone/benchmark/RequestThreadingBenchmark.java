@@ -0,0 +1,97 @@
+package com.rollingstone.benchmark;
+
+import com.rollingstone.SpringBoot278SpringSecurity5Oauth2MultitenantRestlessApiResourceServerApplication;
+import com.rollingstone.security.StubOidcServer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+// Authenticated requests that block on a downstream call, from more concurrent clients (400) than Tomcat has
+// worker threads (200), served by the platform thread pool against virtual threads. Throughput gives requests
+// per second, SampleTime the latency percentiles (p0.99). The virtual run needs JDK 21 (-Pjava21); on older
+// runtimes spring.threads.virtual.enabled is ignored and both runs use the pool. Clients share the JVM with the
+// server, so on a small box pick a latency long enough that the run waits rather than saturating the CPU:
+//   -Djmh.args="RequestThreading -p downstreamLatency=5s -r 30"
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(400)
+@Fork(1)
+public class RequestThreadingBenchmark {
+
+    private static final int TENANTS = 10;
+
+    @Param({"platform", "virtual"})
+    public String threading;
+
+    @Param({"20ms"})
+    public String downstreamLatency;
+
+    private StubOidcServer idp;
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private URI uri;
+    private String[] tokens;
+
+    @State(Scope.Thread)
+    public static class Client {
+        String authorization;
+
+        @Setup
+        public void setUp(RequestThreadingBenchmark benchmark) {
+            int tenant = (int) (Thread.currentThread().getId() % TENANTS);
+            authorization = "Bearer " + benchmark.tokens[tenant];
+        }
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        idp = StubOidcServer.start();
+        SpringApplicationBuilder application = new SpringApplicationBuilder(
+                SpringBoot278SpringSecurity5Oauth2MultitenantRestlessApiResourceServerApplication.class)
+                .profiles("test");
+        tokens = new String[TENANTS];
+        for (int i = 0; i < TENANTS; i++) {
+            application.properties("security.issuers.bench" + i + "=" + idp.issuer("bench" + i));
+            tokens[i] = idp.mint("bench" + i);
+        }
+        // As arguments, since application.properties would override default properties
+        context = application.run("--server.port=0", "--bench.downstream-latency=" + downstreamLatency,
+                "--spring.threads.virtual.enabled=" + threading.equals("virtual"));
+        String port = context.getEnvironment().getProperty("local.server.port");
+        uri = URI.create("http://localhost:" + port + "/bench/downstream");
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        String servedOn = get("Bearer " + tokens[0]);
+        if (servedOn.startsWith("VirtualThread") != threading.equals("virtual")) {
+            throw new IllegalStateException("Expected " + threading + " threads, request was served on " + servedOn);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        idp.close();
+    }
+
+    @Benchmark
+    public String request(Client caller) throws Exception {
+        return get(caller.authorization);
+    }
+
+    private String get(String authorization) throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri)
+                .header("Authorization", authorization).build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("HTTP " + response.statusCode() + ": " + response.body());
+        }
+        return response.body();
+    }
+}
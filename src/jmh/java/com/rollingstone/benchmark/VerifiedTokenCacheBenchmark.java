@@ -0,0 +1,70 @@
+package com.rollingstone.benchmark;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.rollingstone.config.TokenCacheProperties;
+import com.rollingstone.security.DynamicIssuerRegistry;
+import com.rollingstone.security.VerifiedTokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+// Repeat decode of the same access token: full RS256 verification + validators vs. the verified-token cache
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VerifiedTokenCacheBenchmark {
+
+    private static final String ISSUER = "http://localhost/realms/bench";
+
+    private String token;
+    private JwtDecoder uncached;
+    private JwtDecoder cached;
+
+    @Setup
+    public void setUp() throws JOSEException {
+        RSAKey rsaKey = new RSAKeyGenerator(2048).keyID("bench").generate();
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .issuer(ISSUER)
+                .subject("bench-user")
+                .expirationTime(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID("bench").build(), claims);
+        jwt.sign(new RSASSASigner(rsaKey));
+        token = jwt.serialize();
+
+        NimbusJwtDecoder decoder = NimbusJwtDecoder.withPublicKey(rsaKey.toRSAPublicKey()).build();
+        decoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(ISSUER));
+        uncached = decoder;
+
+        TokenCacheProperties properties = new TokenCacheProperties();
+        properties.setEnabled(true);
+        cached = new VerifiedTokenCache(properties, new DynamicIssuerRegistry(), new SimpleMeterRegistry())
+                .decorate(decoder);
+    }
+
+    @Benchmark
+    public Jwt uncached() {
+        return uncached.decode(token);
+    }
+
+    @Benchmark
+    public Jwt cached() {
+        return cached.decode(token);
+    }
+}
@@ -0,0 +1,124 @@
+package com.rollingstone.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Open-model load: requests are scheduled at a fixed rate whatever the server's response times, and each latency
+// is taken from the scheduled send time. A server that falls behind therefore shows up in the percentiles instead
+// of silently slowing the driver down (coordinated omission). At most maxInFlight requests are outstanding; past
+// that the pacer waits, and the wait is charged to the requests it delays.
+class LoadDriver {
+
+    // Endpoint mix, by weight: single-order reads dominate, as they do behind the UI
+    private static final Endpoint[] ENDPOINTS = {
+            new Endpoint("GET /api/orders/{id}", 40),
+            new Endpoint("GET /api/order-lines/order/{id}", 30),
+            new Endpoint("GET /api/orders?limit=50", 15),
+            new Endpoint("GET /api/order-lines?limit=50", 15)
+    };
+    private static final int TOTAL_WEIGHT = 100;
+
+    private final HttpClient client;
+    private final String baseUri;
+    private final List<Tenant> tenants;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+
+    LoadDriver(HttpClient client, String baseUri, List<Tenant> tenants, int maxInFlight) {
+        this.client = client;
+        this.baseUri = baseUri;
+        this.tenants = tenants;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    // Sends at ratePerSecond for the given duration, then waits for outstanding responses
+    void run(double ratePerSecond, Duration duration, LoadStats stats) throws InterruptedException {
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        for (long i = 0; ; i++) {
+            long scheduled = start + (long) (i * 1e9 / ratePerSecond);
+            if (scheduled >= end) {
+                break;
+            }
+            long wait;
+            while ((wait = scheduled - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            inFlight.acquire();
+            stats.sent(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduled));
+            send(scheduled, stats);
+        }
+        if (!inFlight.tryAcquire(maxInFlight, 1, TimeUnit.MINUTES)) {
+            throw new IllegalStateException("Responses still outstanding a minute after the run ended");
+        }
+        inFlight.release(maxInFlight);
+    }
+
+    private void send(long scheduled, LoadStats stats) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Tenant tenant = tenants.get(random.nextInt(tenants.size()));
+        Endpoint endpoint = pick(random.nextInt(TOTAL_WEIGHT));
+        long orderId = tenant.firstOrderId + random.nextLong(tenant.orders);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUri + endpoint.path(orderId)))
+                .header("Authorization", tenant.authorization)
+                .header("Accept", "application/json")
+                .build();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+            long latency = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduled);
+            inFlight.release();
+            if (failure != null) {
+                stats.failed(tenant.name, endpoint.name, latency, failure);
+            } else {
+                stats.completed(tenant.name, endpoint.name, latency, response.statusCode());
+            }
+        });
+    }
+
+    private static Endpoint pick(int roll) {
+        for (Endpoint endpoint : ENDPOINTS) {
+            roll -= endpoint.weight;
+            if (roll < 0) {
+                return endpoint;
+            }
+        }
+        return ENDPOINTS[ENDPOINTS.length - 1];
+    }
+
+    // A tenant's bearer token and the block of order ids seeded for it
+    static final class Tenant {
+        private final String name;
+        private final String authorization;
+        private final long firstOrderId;
+        private final long orders;
+
+        Tenant(String name, String token, long firstOrderId, long orders) {
+            this.name = name;
+            this.authorization = "Bearer " + token;
+            this.firstOrderId = firstOrderId;
+            this.orders = orders;
+        }
+    }
+
+    private static final class Endpoint {
+        private final String name;
+        private final int weight;
+
+        private Endpoint(String name, int weight) {
+            this.name = name;
+            this.weight = weight;
+        }
+
+        private String path(long orderId) {
+            return name.substring("GET ".length()).replace("{id}", Long.toString(orderId));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.rollingstone.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latencies (microseconds, from each request's scheduled send time) and outcomes per tenant and endpoint
+class LoadStats {
+
+    private final ConcurrentMap<String, ConcurrentMap<String, Outcomes>> byTenant = new ConcurrentHashMap<>();
+    private final LongAdder sent = new LongAdder();
+    private volatile long maxSendLagMicros;
+
+    void sent(long lagMicros) {
+        sent.increment();
+        if (lagMicros > maxSendLagMicros) {
+            // Only the single pacing thread writes this
+            maxSendLagMicros = lagMicros;
+        }
+    }
+
+    void completed(String tenant, String endpoint, long latencyMicros, int status) {
+        Outcomes outcomes = outcomes(tenant, endpoint);
+        outcomes.latency.recordValue(latencyMicros);
+        if (status >= 400) {
+            outcomes.errors.computeIfAbsent("HTTP " + status, cause -> new LongAdder()).increment();
+        }
+    }
+
+    void failed(String tenant, String endpoint, long latencyMicros, Throwable failure) {
+        Outcomes outcomes = outcomes(tenant, endpoint);
+        outcomes.latency.recordValue(latencyMicros);
+        outcomes.errors.computeIfAbsent(failure.getClass().getSimpleName(), cause -> new LongAdder()).increment();
+    }
+
+    private Outcomes outcomes(String tenant, String endpoint) {
+        return byTenant.computeIfAbsent(tenant, t -> new ConcurrentHashMap<>())
+                .computeIfAbsent(endpoint, e -> new Outcomes());
+    }
+
+    Histogram overall() {
+        Histogram overall = new Histogram(3);
+        byTenant.values().forEach(endpoints -> endpoints.values().forEach(o -> overall.add(o.latency)));
+        return overall;
+    }
+
+    void report(PrintStream out, Duration elapsed) {
+        double seconds = elapsed.toNanos() / 1e9;
+        Map<String, Row> tenants = new TreeMap<>();
+        Map<String, Row> endpoints = new TreeMap<>();
+        Row total = new Row();
+        byTenant.forEach((tenant, byEndpoint) -> byEndpoint.forEach((endpoint, outcomes) -> {
+            tenants.computeIfAbsent(tenant, t -> new Row()).add(outcomes);
+            endpoints.computeIfAbsent(endpoint, e -> new Row()).add(outcomes);
+            total.add(outcomes);
+        }));
+
+        out.printf("%nSent %d requests in %.1fs; the pacer fell behind schedule by at most %d ms%n",
+                sent.sum(), seconds, TimeUnit.MICROSECONDS.toMillis(maxSendLagMicros));
+        out.printf("%nLatency in ms, measured from the scheduled send time%n");
+        out.printf("%-32s %9s %8s %7s %9s %8s %8s %8s %8s %8s%n",
+                "", "requests", "errors", "err %", "req/s", "p50", "p90", "p99", "p99.9", "max");
+        tenants.forEach((tenant, row) -> row.print(out, "tenant " + tenant, seconds));
+        out.println();
+        endpoints.forEach((endpoint, row) -> row.print(out, endpoint, seconds));
+        out.println();
+        total.print(out, "all", seconds);
+        if (!total.errors.isEmpty()) {
+            out.printf("%nErrors:%n");
+            total.errors.forEach((cause, count) -> out.printf("  %-30s %d%n", cause, count));
+        }
+    }
+
+    private static final class Outcomes {
+        private final ConcurrentHistogram latency = new ConcurrentHistogram(3);
+        private final ConcurrentMap<String, LongAdder> errors = new ConcurrentHashMap<>();
+    }
+
+    private static final class Row {
+        private final Histogram latency = new Histogram(3);
+        private final Map<String, Long> errors = new TreeMap<>();
+
+        private void add(Outcomes outcomes) {
+            latency.add(outcomes.latency);
+            outcomes.errors.forEach((cause, count) -> errors.merge(cause, count.sum(), Long::sum));
+        }
+
+        private void print(PrintStream out, String label, double seconds) {
+            long requests = latency.getTotalCount();
+            long failed = errors.values().stream().mapToLong(Long::longValue).sum();
+            out.printf("%-32s %9d %8d %7.2f %9.1f %8.2f %8.2f %8.2f %8.2f %8.2f%n",
+                    label, requests, failed, requests == 0 ? 0.0 : 100.0 * failed / requests, requests / seconds,
+                    millis(latency.getValueAtPercentile(50)), millis(latency.getValueAtPercentile(90)),
+                    millis(latency.getValueAtPercentile(99)), millis(latency.getValueAtPercentile(99.9)),
+                    millis(latency.getMaxValue()));
+        }
+
+        private static double millis(long micros) {
+            return micros / 1000.0;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.rollingstone.loadtest;
+
+import com.rollingstone.SpringBoot278SpringSecurity5Oauth2MultitenantRestlessApiResourceServerApplication;
+import com.rollingstone.config.IdAllocatorAligner;
+import com.rollingstone.security.StubOidcServer;
+import com.rollingstone.service.OrderStatusCounters;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Boots the API against a stub IdP and an embedded H2 database, seeds orders for every tenant, then drives
+// /api/orders and /api/order-lines at a fixed rate and prints throughput, latency percentiles and errors per
+// tenant and endpoint. Everything binds to loopback, so it runs on one box with no network:
+//   mvn -Ploadtest test-compile exec:exec -Dloadtest.args="--tenants=10 --orders=20000 --lines=5 --rate=500 --duration=60s"
+// The full latency distribution of the measured run is written to target/loadtest/latency.hgrm.
+public final class LoadTest {
+
+    private static final Map<String, String> DEFAULTS = Map.of(
+            "tenants", "10",           // tenant01..tenantNN, each its own realm on the stub IdP
+            "orders", "10000",         // orders seeded per tenant
+            "lines", "5",              // lines per order
+            "rate", "200",             // requests per second, across all tenants
+            "warmup", "15s",           // run at the same rate first, results discarded
+            "duration", "60s",         // measured run
+            "max-in-flight", "200");   // outstanding requests before the pacer waits
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = options(args);
+        int tenantCount = Integer.parseInt(options.get("tenants"));
+        int orders = Integer.parseInt(options.get("orders"));
+        int lines = Integer.parseInt(options.get("lines"));
+        double rate = Double.parseDouble(options.get("rate"));
+        Duration warmup = DurationStyle.detectAndParse(options.get("warmup"));
+        Duration duration = DurationStyle.detectAndParse(options.get("duration"));
+        int maxInFlight = Integer.parseInt(options.get("max-in-flight"));
+        PrintStream out = System.out;
+
+        try (StubOidcServer idp = StubOidcServer.start()) {
+            List<String> tenantIds = new ArrayList<>();
+            List<String> arguments = new ArrayList<>(List.of("--server.port=0"));
+            for (int t = 1; t <= tenantCount; t++) {
+                String tenant = String.format("tenant%02d", t);
+                tenantIds.add(tenant);
+                arguments.add("--security.issuers." + tenant + "=" + idp.issuer(tenant));
+            }
+            // As arguments, since application.properties would override default properties
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(
+                    SpringBoot278SpringSecurity5Oauth2MultitenantRestlessApiResourceServerApplication.class)
+                    .profiles("loadtest")
+                    .run(arguments.toArray(new String[0]));
+            try {
+                long seedStart = System.nanoTime();
+                new OrderSeeder(context.getBean(JdbcTemplate.class), context.getBean(IdAllocatorAligner.class),
+                        context.getBean(OrderStatusCounters.class)).seed(tenantIds, orders, lines);
+                out.printf("Seeded %d tenants x %d orders x %d lines in %d ms%n", tenantCount, orders, lines,
+                        Duration.ofNanos(System.nanoTime() - seedStart).toMillis());
+
+                // Tokens outlive the whole run, so no request fails on expiry
+                Date expiry = new Date(System.currentTimeMillis()
+                        + warmup.plus(duration).plus(Duration.ofMinutes(5)).toMillis());
+                List<LoadDriver.Tenant> tenants = new ArrayList<>();
+                for (int t = 0; t < tenantCount; t++) {
+                    String token = idp.mint(tenantIds.get(t), claims -> claims.expirationTime(expiry));
+                    tenants.add(new LoadDriver.Tenant(tenantIds.get(t), token, (long) t * orders + 1, orders));
+                }
+                String baseUri = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+                LoadDriver driver = new LoadDriver(HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1).build(), baseUri, tenants, maxInFlight);
+
+                out.printf("Warming up for %ss at %.0f req/s%n", warmup.toSeconds(), rate);
+                driver.run(rate, warmup, new LoadStats());
+                out.printf("Measuring for %ss at %.0f req/s%n", duration.toSeconds(), rate);
+                LoadStats stats = new LoadStats();
+                long start = System.nanoTime();
+                driver.run(rate, duration, stats);
+                stats.report(out, Duration.ofNanos(System.nanoTime() - start));
+                writeHistogram(stats.overall(), Path.of("target", "loadtest", "latency.hgrm"));
+            } finally {
+                context.close();
+            }
+        }
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>(DEFAULTS);
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0 || !DEFAULTS.containsKey(arg.substring(2, equals))) {
+                throw new IllegalArgumentException("Unknown option " + arg + "; expected --name=value with name one of "
+                        + DEFAULTS.keySet());
+            }
+            options.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+        return options;
+    }
+
+    // Percentile distribution in ms, plottable with HdrHistogram's plotter
+    private static void writeHistogram(Histogram histogram, Path file) throws Exception {
+        Files.createDirectories(file.getParent());
+        try (PrintStream hgrm = new PrintStream(Files.newOutputStream(file))) {
+            histogram.outputPercentileDistribution(hgrm, 1000.0);
+        }
+        System.out.println("\nLatency distribution written to " + file.toAbsolutePath());
+    }
+}
@@ -0,0 +1,62 @@
+package com.rollingstone.loadtest;
+
+import com.rollingstone.config.IdAllocatorAligner;
+import com.rollingstone.service.OrderStatusCounters;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+// Fills the embedded database with set-based INSERT ... SELECT statements, one tenant at a time. Tenant t owns
+// order ids [t * orders + 1, (t + 1) * orders], so a driver can pick a tenant's orders without asking the database.
+class OrderSeeder {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final IdAllocatorAligner idAllocatorAligner;
+    private final OrderStatusCounters orderStatusCounters;
+
+    OrderSeeder(JdbcTemplate jdbcTemplate, IdAllocatorAligner idAllocatorAligner,
+                OrderStatusCounters orderStatusCounters) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idAllocatorAligner = idAllocatorAligner;
+        this.orderStatusCounters = orderStatusCounters;
+    }
+
+    void seed(List<String> tenants, int ordersPerTenant, int linesPerOrder) {
+        for (int t = 0; t < tenants.size(); t++) {
+            long firstOrder = (long) t * ordersPerTenant + 1;
+            long lastOrder = firstOrder + ordersPerTenant - 1;
+            insertOrders(tenants.get(t), firstOrder, lastOrder);
+            if (linesPerOrder > 0) {
+                insertLines(tenants.get(t), firstOrder, lastOrder, linesPerOrder);
+            }
+        }
+        // The seed bypassed Hibernate: move the id allocator past it and rebuild the status counters
+        idAllocatorAligner.afterPropertiesSet();
+        orderStatusCounters.reconcile();
+    }
+
+    // order X: customer C<X mod 1000>, status by X mod 4, placed X minutes after 2024-01-01
+    // system_range's column is upper-case X, so it needs quoting under DATABASE_TO_LOWER
+    private void insertOrders(String tenant, long firstOrder, long lastOrder) {
+        jdbcTemplate.update("insert into order_header (tenant_id, order_id, version, order_number, customer_number,"
+                + " order_date, order_status, order_total, currency, payment_method, created_by, created_at)"
+                + " select ?, \"X\", 0, 'ORD-' || \"X\", 'C' || mod(\"X\", 1000),"
+                + " dateadd('MINUTE', \"X\", timestamp '2024-01-01 00:00:00'),"
+                + " case mod(\"X\", 4) when 0 then 'NEW' when 1 then 'PAID' when 2 then 'SHIPPED' else 'CANCELLED' end,"
+                + " mod(\"X\", 500) + 0.99, 'USD', 'CARD', 'loadtest',"
+                + " dateadd('MINUTE', \"X\", timestamp '2024-01-01 00:00:00')"
+                + " from system_range(?, ?)", tenant, firstOrder, lastOrder);
+    }
+
+    // line X belongs to order (X - 1) / lines + 1, so each order's lines are numbered 1..lines
+    private void insertLines(String tenant, long firstOrder, long lastOrder, int linesPerOrder) {
+        jdbcTemplate.update("insert into order_line (tenant_id, order_line_id, version, order_id, line_number,"
+                + " product_id, product_description, quantity, uom, unit_price, item_total, status, created_by,"
+                + " created_at)"
+                + " select ?, \"X\", 0, (\"X\" - 1) / ? + 1, mod(\"X\" - 1, ?) + 1,"
+                + " 'P' || mod(\"X\", 100), 'Product ' || mod(\"X\", 100), mod(\"X\", 5) + 1, 'EA', 2.50,"
+                + " (mod(\"X\", 5) + 1) * 2.50, 'OPEN', 'loadtest', timestamp '2024-01-01 00:00:00'"
+                + " from system_range(?, ?)", tenant, linesPerOrder, linesPerOrder,
+                (firstOrder - 1) * linesPerOrder + 1, lastOrder * linesPerOrder);
+    }
+}
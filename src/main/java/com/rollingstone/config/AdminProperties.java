@@ -0,0 +1,19 @@
+package com.rollingstone.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "security.admin")
+public class AdminProperties {
+    // Operators' own issuer, registered like any other; only its tokens may use /admin/**. Unset: nobody may.
+    private String issuer;
+
+    public String getIssuer() {
+        return issuer;
+    }
+
+    public void setIssuer(String issuer) {
+        this.issuer = issuer;
+    }
+}
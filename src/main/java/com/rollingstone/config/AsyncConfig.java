@@ -0,0 +1,56 @@
+package com.rollingstone.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+@Configuration
+// @Scheduled jobs (tenant registry sync, order count reconciliation) run on Boot's task scheduler, sized by
+// spring.task.scheduling.pool.size so a long reconcile never holds up the sync
+@EnableScheduling
+public class AsyncConfig {
+
+    // Runs OIDC discovery / JWKS fetches for issuer decoders off the request path. With
+    // spring.threads.virtual.enabled on Java 21 each warmup gets a virtual thread, and threads only caps how many
+    // discoveries are in flight against the IdPs at once; tasks over the cap park, the submitter never does.
+    @Bean(name = "decoderWarmupExecutor")
+    public TaskExecutor decoderWarmupExecutor(@Value("${security.decoder-warmup.threads:8}") int threads,
+                                              Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("decoder-warmup-");
+            executor.setVirtualThreads(true);
+            Semaphore inFlight = new Semaphore(threads);
+            return task -> executor.execute(() -> {
+                inFlight.acquireUninterruptibly();
+                try {
+                    task.run();
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("decoder-warmup-");
+        return executor;
+    }
+
+    // Refresh-ahead JWKS fetches for all issuers share these threads instead of one thread per issuer. They stay
+    // platform threads in either mode: the pool is there to bound refresh traffic, and two threads are cheap.
+    @Bean(name = "jwksRefreshExecutor")
+    public ExecutorService jwksRefreshExecutor(@Value("${security.jwks.refresh-threads:2}") int threads) {
+        return Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("jwks-refresh-"));
+    }
+}
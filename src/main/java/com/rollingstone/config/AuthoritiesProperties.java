@@ -0,0 +1,62 @@
+package com.rollingstone.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "security.authorities")
+public class AuthoritiesProperties {
+    private String prefix = "ROLE_";
+    // Dot-separated paths into the token claims, e.g. realm_access.roles or resource_access.<client>.roles
+    private List<String> claimPaths = List.of("realm_access.roles");
+    // tenantId -> claim paths, replacing the defaults for that tenant
+    private Map<String, List<String>> tenants = new HashMap<>();
+    // Distinct role sets whose authority collections are kept for reuse
+    private long cacheSize = 10_000;
+    // Role required for /admin/** (tenant registration), matched as prefix + adminRole on security.admin.issuer's tokens
+    private String adminRole = "admin";
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public void setPrefix(String prefix) {
+        this.prefix = prefix;
+    }
+
+    public List<String> getClaimPaths() {
+        return claimPaths;
+    }
+
+    public void setClaimPaths(List<String> claimPaths) {
+        this.claimPaths = claimPaths;
+    }
+
+    public Map<String, List<String>> getTenants() {
+        return tenants;
+    }
+
+    public void setTenants(Map<String, List<String>> tenants) {
+        this.tenants = tenants;
+    }
+
+    public long getCacheSize() {
+        return cacheSize;
+    }
+
+    public void setCacheSize(long cacheSize) {
+        this.cacheSize = cacheSize;
+    }
+
+    public String getAdminRole() {
+        return adminRole;
+    }
+
+    public void setAdminRole(String adminRole) {
+        this.adminRole = adminRole;
+    }
+}
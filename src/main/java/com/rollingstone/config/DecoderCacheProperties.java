@@ -0,0 +1,31 @@
+package com.rollingstone.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+// Bounds for the per-issuer decoder and AuthenticationManager caches
+@Configuration
+@ConfigurationProperties(prefix = "security.decoder-cache")
+public class DecoderCacheProperties {
+    private long maximumSize = 1_000;
+    // An issuer with no traffic for this long is dropped and rebuilt (discovery + JWKS) on its next request
+    private Duration expireAfterAccess = Duration.ofHours(1);
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public Duration getExpireAfterAccess() {
+        return expireAfterAccess;
+    }
+
+    public void setExpireAfterAccess(Duration expireAfterAccess) {
+        this.expireAfterAccess = expireAfterAccess;
+    }
+}
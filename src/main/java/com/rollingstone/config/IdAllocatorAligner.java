@@ -0,0 +1,61 @@
+package com.rollingstone.config;
+
+import com.rollingstone.model.OrderHeader;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// Rows written while the ids were IDENTITY columns are unknown to the pooled id_allocator. Before anything is
+// inserted, each allocator row is moved past the largest id already in its table.
+@Component
+public class IdAllocatorAligner implements InitializingBean {
+
+    // allocator segment (same as the table name) -> id column
+    private static final Map<String, String> ID_COLUMNS = Map.of(
+            "order_header", "order_id",
+            "order_line", "order_line_id");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Taking the EntityManagerFactory makes sure the schema (id_allocator included) exists first
+    public IdAllocatorAligner(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        ID_COLUMNS.forEach(this::align);
+    }
+
+    private void align(String table, String idColumn) {
+        Long maxId = jdbcTemplate.queryForObject("select coalesce(max(" + idColumn + "), 0) from " + table, Long.class);
+        if (maxId == null || maxId == 0) {
+            return;
+        }
+        // The pooled optimizer hands out the block that ends at the stored value, so stay a full block clear
+        long floor = maxId + OrderHeader.ID_ALLOCATION_SIZE + 1;
+        if (raise(table, floor) == 0 && !exists(table)) {
+            try {
+                jdbcTemplate.update("insert into id_allocator (sequence_name, next_val) values (?, ?)", table, floor);
+            } catch (DuplicateKeyException e) {
+                // another instance created it meanwhile
+                raise(table, floor);
+            }
+        }
+    }
+
+    private int raise(String segment, long floor) {
+        return jdbcTemplate.update("update id_allocator set next_val = ? where sequence_name = ? and next_val < ?",
+                floor, segment, floor);
+    }
+
+    private boolean exists(String segment) {
+        Integer rows = jdbcTemplate.queryForObject("select count(*) from id_allocator where sequence_name = ?",
+                Integer.class, segment);
+        return rows != null && rows > 0;
+    }
+}
@@ -0,0 +1,20 @@
+package com.rollingstone.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+// Bulk order ingest (POST /api/orders/batch)
+@Configuration
+@ConfigurationProperties(prefix = "api.ingest")
+public class IngestProperties {
+    // Orders persisted per transaction; the persistence context is flushed and cleared after each
+    private int chunkSize = 500;
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+}
@@ -0,0 +1,79 @@
+package com.rollingstone.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "security.jwks")
+public class JwksProperties {
+    // How long a fetched key set is used before it must be fetched again
+    private Duration cacheTtl = Duration.ofMinutes(5);
+    // Requests arriving this close to expiry trigger a background refresh instead of waiting for it
+    private Duration refreshAhead = Duration.ofSeconds(30);
+    // How long a request waits on a refresh already in flight for the same issuer
+    private Duration refreshTimeout = Duration.ofSeconds(15);
+    // Per issuer, at most two fetches in this window; unknown-kid tokens beyond that are rejected
+    private Duration minRefetchInterval = Duration.ofSeconds(30);
+    // How long last-known-good keys keep being served while the IdP's JWKS endpoint is failing
+    private Duration outageTolerance = Duration.ofHours(1);
+    private Duration connectTimeout = Duration.ofSeconds(2);
+    private Duration readTimeout = Duration.ofSeconds(5);
+
+    public Duration getCacheTtl() {
+        return cacheTtl;
+    }
+
+    public void setCacheTtl(Duration cacheTtl) {
+        this.cacheTtl = cacheTtl;
+    }
+
+    public Duration getRefreshAhead() {
+        return refreshAhead;
+    }
+
+    public void setRefreshAhead(Duration refreshAhead) {
+        this.refreshAhead = refreshAhead;
+    }
+
+    public Duration getRefreshTimeout() {
+        return refreshTimeout;
+    }
+
+    public void setRefreshTimeout(Duration refreshTimeout) {
+        this.refreshTimeout = refreshTimeout;
+    }
+
+    public Duration getMinRefetchInterval() {
+        return minRefetchInterval;
+    }
+
+    public void setMinRefetchInterval(Duration minRefetchInterval) {
+        this.minRefetchInterval = minRefetchInterval;
+    }
+
+    public Duration getOutageTolerance() {
+        return outageTolerance;
+    }
+
+    public void setOutageTolerance(Duration outageTolerance) {
+        this.outageTolerance = outageTolerance;
+    }
+
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(Duration connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public Duration getReadTimeout() {
+        return readTimeout;
+    }
+
+    public void setReadTimeout(Duration readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+}
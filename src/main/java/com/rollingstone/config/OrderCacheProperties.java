@@ -0,0 +1,41 @@
+package com.rollingstone.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+// Bounds for the read-through cache behind GET /api/orders/{id} and GET /api/order-lines/order/{orderId}
+@Configuration
+@ConfigurationProperties(prefix = "api.order-cache")
+public class OrderCacheProperties {
+    private boolean enabled = true;
+    // Per cache (orders, order lines)
+    private long maximumSize = 10_000;
+    // Writes on this node invalidate at once; this caps how long a write made elsewhere can go unseen
+    private Duration expireAfterWrite = Duration.ofMinutes(1);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public Duration getExpireAfterWrite() {
+        return expireAfterWrite;
+    }
+
+    public void setExpireAfterWrite(Duration expireAfterWrite) {
+        this.expireAfterWrite = expireAfterWrite;
+    }
+}
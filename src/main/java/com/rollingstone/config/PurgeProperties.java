@@ -0,0 +1,20 @@
+package com.rollingstone.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+// Bulk order deletes (DELETE /api/orders)
+@Configuration
+@ConfigurationProperties(prefix = "api.purge")
+public class PurgeProperties {
+    // Orders deleted per transaction; their rows stay locked until it commits
+    private int chunkSize = 500;
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+}
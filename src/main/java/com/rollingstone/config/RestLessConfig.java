@@ -1,11 +1,12 @@
 package com.rollingstone.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.hibernate6.Hibernate6Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.rollingstone.security.ClaimPathAuthoritiesConverter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
-import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
 
 @Configuration
 public class RestLessConfig {
@@ -14,15 +15,16 @@ public class RestLessConfig {
     public ObjectMapper objectMapper() {
         ObjectMapper mapper = new ObjectMapper();
         mapper.registerModule(new JavaTimeModule());
+        // Lazy associations that were not fetched are written as null instead of being loaded (or failing)
+        mapper.registerModule(new Hibernate6Module());
+        // Orders, lines and their views bring their own serializers (OrderJson); a FieldSelection reaches them
+        // through MappingJacksonValue, so no default filter is needed
         return mapper;
     }
 
     @Bean
-    public JwtAuthenticationConverter jwtAuthenticationConverter() {
-        JwtGrantedAuthoritiesConverter authoritiesConverter = new JwtGrantedAuthoritiesConverter();
-        authoritiesConverter.setAuthorityPrefix("ROLE_");
-        authoritiesConverter.setAuthoritiesClaimName("realm_access.roles");
-
+    public JwtAuthenticationConverter jwtAuthenticationConverter(ClaimPathAuthoritiesConverter authoritiesConverter) {
+        // JwtGrantedAuthoritiesConverter only reads top-level claims, so realm_access.roles was never found
         JwtAuthenticationConverter converter = new JwtAuthenticationConverter();
         converter.setJwtGrantedAuthoritiesConverter(authoritiesConverter);
         return converter;
@@ -0,0 +1,50 @@
+package com.rollingstone.config;
+
+import com.rollingstone.security.DynamicIssuerRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// Orders written before tenant_id existed get '' (MySQL's default for the NOT NULL column ddl-auto adds), which
+// no tenant resolves to, so they would silently vanish for everyone. Before anything is served they are either
+// assigned to api.tenant-backfill.tenant-id, lines following their order, or startup fails.
+@Component
+public class TenantBackfill implements InitializingBean {
+
+    private static final String NO_TENANT = " where tenant_id is null or tenant_id = ''";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String tenantId;
+
+    // Taking the EntityManagerFactory makes sure the schema (tenant_id included) exists first
+    public TenantBackfill(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory,
+                          @Value("${api.tenant-backfill.tenant-id:}") String tenantId) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tenantId = tenantId;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        long orders = count("order_header");
+        long lines = count("order_line");
+        if (orders == 0 && lines == 0) {
+            return;
+        }
+        if (tenantId == null || tenantId.isBlank()) {
+            throw new IllegalStateException(orders + " orders and " + lines + " order lines have no tenant_id;"
+                    + " set api.tenant-backfill.tenant-id to assign them to a tenant");
+        }
+        DynamicIssuerRegistry.requireValidTenantId(tenantId);
+        // Each statement only touches rows still without a tenant, so a run cut short is finished by the next
+        jdbcTemplate.update("update order_header set tenant_id = ?" + NO_TENANT, tenantId);
+        jdbcTemplate.update("update order_line set tenant_id = (select h.tenant_id from order_header h"
+                + " where h.order_id = order_line.order_id)" + NO_TENANT);
+    }
+
+    private long count(String table) {
+        Long rows = jdbcTemplate.queryForObject("select count(*) from " + table + NO_TENANT, Long.class);
+        return rows == null ? 0 : rows;
+    }
+}
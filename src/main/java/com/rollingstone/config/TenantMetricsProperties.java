@@ -0,0 +1,33 @@
+package com.rollingstone.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Bounds the tenant/issuer tag values on authentication and request metrics
+@Configuration
+@ConfigurationProperties(prefix = "security.metrics")
+public class TenantMetricsProperties {
+    // Tenants seen beyond this many (pinned ones not counted) are reported under tenant=other
+    private int maxTaggedTenants = 100;
+    // Always tagged by name, whatever the limit
+    private List<String> pinnedTenants = new ArrayList<>();
+
+    public int getMaxTaggedTenants() {
+        return maxTaggedTenants;
+    }
+
+    public void setMaxTaggedTenants(int maxTaggedTenants) {
+        this.maxTaggedTenants = maxTaggedTenants;
+    }
+
+    public List<String> getPinnedTenants() {
+        return pinnedTenants;
+    }
+
+    public void setPinnedTenants(List<String> pinnedTenants) {
+        this.pinnedTenants = pinnedTenants;
+    }
+}
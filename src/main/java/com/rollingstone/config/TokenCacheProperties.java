@@ -0,0 +1,39 @@
+package com.rollingstone.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "security.token-cache")
+public class TokenCacheProperties {
+    private boolean enabled = false;
+    private long maximumSize = 10_000;
+    // Upper bound on how long a verified token is trusted, even if its exp is further out
+    private Duration maximumTtl = Duration.ofMinutes(5);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public Duration getMaximumTtl() {
+        return maximumTtl;
+    }
+
+    public void setMaximumTtl(Duration maximumTtl) {
+        this.maximumTtl = maximumTtl;
+    }
+}
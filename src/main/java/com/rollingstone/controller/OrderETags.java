@@ -0,0 +1,60 @@
+package com.rollingstone.controller;
+
+import com.rollingstone.model.FieldSelection;
+import org.springframework.http.ETag;
+
+import java.util.OptionalLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Strong ETags for order resources, built from the order's version (which every write to the order or its
+// lines bumps). Each representation of an order gets its own tag, since they differ byte for byte.
+final class OrderETags {
+
+    private static final Pattern ORDER_TAG = Pattern.compile("order-(\\d+)-(\\d+)(-header)?");
+
+    private OrderETags() {
+    }
+
+    static String order(long orderId, long version, boolean withLines) {
+        return quote("order-" + orderId + "-" + version + (withLines ? "" : "-header"));
+    }
+
+    static String lines(long orderId, long version, FieldSelection selection) {
+        String tag = "lines-" + orderId + "-" + version;
+        if (!selection.isAll()) {
+            tag += "-" + Integer.toHexString(String.join(",", selection.fields()).hashCode());
+        }
+        return quote(tag);
+    }
+
+    // If-None-Match compares weakly
+    static boolean noneMatch(String header, String etag) {
+        return !matches(header, ETag.create(etag), false);
+    }
+
+    // If-Match compares strongly and accepts the tag of either representation of the order
+    static boolean ifMatch(String header, long orderId, long version) {
+        return matches(header, ETag.create(order(orderId, version, true)), true)
+                || matches(header, ETag.create(order(orderId, version, false)), true);
+    }
+
+    // The version named by If-Match, when it holds a strong tag of one of the order's representations
+    static OptionalLong version(String header, long orderId) {
+        for (ETag tag : ETag.parse(header)) {
+            Matcher matcher = ORDER_TAG.matcher(tag.tag());
+            if (!tag.weak() && matcher.matches() && Long.parseLong(matcher.group(1)) == orderId) {
+                return OptionalLong.of(Long.parseLong(matcher.group(2)));
+            }
+        }
+        return OptionalLong.empty();
+    }
+
+    private static boolean matches(String header, ETag current, boolean strong) {
+        return ETag.parse(header).stream().anyMatch(tag -> tag.isWildcard() || tag.compare(current, strong));
+    }
+
+    private static String quote(String tag) {
+        return "\"" + tag + "\"";
+    }
+}
@@ -1,43 +1,157 @@
 package com.rollingstone.controller;
 
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.rollingstone.model.FieldSelection;
 import com.rollingstone.model.OrderHeader;
+import com.rollingstone.model.OrderHeaderView;
+import com.rollingstone.model.OrderPatch;
+import com.rollingstone.service.OrderExportService;
 import com.rollingstone.service.OrderHeaderService;
+import com.rollingstone.service.OrderIngestResult;
+import com.rollingstone.service.OrderIngestService;
+import com.rollingstone.service.OrderPurgeService;
+import com.rollingstone.service.OrderStatusCounts;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+
 
 @RestController
 @RequestMapping("/api/orders")
 public class OrderHeaderController {
 
     private final OrderHeaderService orderHeaderService;
+    private final OrderExportService orderExportService;
+    private final OrderIngestService orderIngestService;
+    private final OrderPurgeService orderPurgeService;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader orderReader;
 
-    public OrderHeaderController(OrderHeaderService orderHeaderService) {
+    public OrderHeaderController(OrderHeaderService orderHeaderService, OrderExportService orderExportService,
+                                 OrderIngestService orderIngestService, OrderPurgeService orderPurgeService,
+                                 ObjectMapper objectMapper) {
         this.orderHeaderService = orderHeaderService;
+        this.orderExportService = orderExportService;
+        this.orderIngestService = orderIngestService;
+        this.orderPurgeService = orderPurgeService;
+        this.objectMapper = objectMapper;
+        this.orderReader = objectMapper.readerFor(OrderHeader.class);
     }
 
+    // Keyset-paginated: pass the returned nextCursor back as cursor to get the following page.
+    // Header columns only, read into views, unless lines=true loads the orders with their lines.
+    // fields=a,b,c writes only those header columns (orderId always); it cannot be combined with lines=true.
     @GetMapping
-    public List<OrderHeader> getAllOrders() {
-        return orderHeaderService.findAllOrders();
+    public ResponseEntity<?> getAllOrders(@RequestParam(required = false) String cursor,
+                                          @RequestParam(required = false) Integer limit,
+                                          @RequestParam(defaultValue = "false") boolean lines,
+                                          @RequestParam(required = false) String fields) {
+        try {
+            if (lines) {
+                requireNoFields(fields);
+                return ResponseEntity.ok(orderHeaderService.findOrders(cursor, limit, true));
+            }
+            return headerViews(null, null, cursor, limit, fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    // Every matching order as NDJSON, streamed from a database cursor; from/to bound orderDate as [from, to)
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public void exportOrders(@RequestParam(required = false) String status,
+                             @RequestParam(required = false) String customerNumber,
+                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                             HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson");
+        orderExportService.exportOrders(status, customerNumber, from, to, response.getOutputStream());
+    }
+
+    // Order counts by status for the caller's tenant
+    @GetMapping("/stats")
+    public OrderStatusCounts getOrderStats() {
+        return orderHeaderService.countOrdersByStatus();
     }
 
+    // With lines unless lines=false. If-None-Match is checked against a version-only query, so an unchanged
+    // order is answered with an empty 304 without loading it, its lines or writing any JSON.
     @GetMapping("/{id}")
-    public ResponseEntity<OrderHeader> getOrderById(@PathVariable Long id) {
-        return orderHeaderService.findOrderById(id)
-                .map(ResponseEntity::ok)
+    public ResponseEntity<?> getOrderById(@PathVariable Long id,
+                                          @RequestParam(defaultValue = "true") boolean lines,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            Optional<Long> version = orderHeaderService.findOrderVersion(id);
+            if (version.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            String etag = OrderETags.order(id, version.get(), lines);
+            if (!OrderETags.noneMatch(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+        }
+        if (lines) {
+            return orderHeaderService.findOrderById(id, true)
+                    .<ResponseEntity<?>>map(order -> ResponseEntity.ok()
+                            .eTag(OrderETags.order(id, order.getVersion(), true)).body(order))
+                    .orElse(ResponseEntity.notFound().build());
+        }
+        return orderHeaderService.findOrderView(id)
+                .<ResponseEntity<?>>map(view -> ResponseEntity.ok()
+                        .eTag(OrderETags.order(id, view.version(), false)).body(view))
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/customer/{customerNumber}")
-    public List<OrderHeader> getOrdersByCustomer(@PathVariable String customerNumber) {
-        return orderHeaderService.findOrdersByCustomer(customerNumber);
+    public ResponseEntity<?> getOrdersByCustomer(@PathVariable String customerNumber,
+                                                 @RequestParam(required = false) String cursor,
+                                                 @RequestParam(required = false) Integer limit,
+                                                 @RequestParam(defaultValue = "false") boolean lines,
+                                                 @RequestParam(required = false) String fields) {
+        try {
+            if (lines) {
+                requireNoFields(fields);
+                return ResponseEntity.ok(orderHeaderService.findOrdersByCustomer(customerNumber, cursor, limit, true));
+            }
+            return headerViews(customerNumber, null, cursor, limit, fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
     }
 
     @GetMapping("/status/{status}")
-    public List<OrderHeader> getOrdersByStatus(@PathVariable String status) {
-        return orderHeaderService.findOrdersByStatus(status);
+    public ResponseEntity<?> getOrdersByStatus(@PathVariable String status,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam(required = false) Integer limit,
+                                               @RequestParam(defaultValue = "false") boolean lines,
+                                               @RequestParam(required = false) String fields) {
+        try {
+            if (lines) {
+                requireNoFields(fields);
+                return ResponseEntity.ok(orderHeaderService.findOrdersByStatus(status, cursor, limit, true));
+            }
+            return headerViews(null, status, cursor, limit, fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
     }
 
     @PostMapping
@@ -45,19 +159,112 @@ public class OrderHeaderController {
         return orderHeaderService.saveOrder(orderHeader);
     }
 
+    // New orders (with lines) as a JSON array or NDJSON, read and stored in chunks as the body arrives.
+    // One result per order, in request order.
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, "application/x-ndjson"})
+    public List<OrderIngestResult> createOrders(HttpServletRequest request) throws IOException {
+        try (MappingIterator<OrderHeader> orders = orderReader.readValues(request.getInputStream())) {
+            return orderIngestService.ingest(orders);
+        }
+    }
+
+    // With If-Match, the update only goes ahead while the order is still at the tagged version: 412 otherwise,
+    // including when another write gets in between the check and this one
     @PutMapping("/{id}")
-    public ResponseEntity<OrderHeader> updateOrder(@PathVariable Long id, @RequestBody OrderHeader updatedOrder) {
-        return orderHeaderService.findOrderById(id)
-                .map(existing -> {
-                    updatedOrder.setOrderId(id);
-                    return ResponseEntity.ok(orderHeaderService.saveOrder(updatedOrder));
-                }).orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<?> updateOrder(@PathVariable Long id,
+                                         @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                         @RequestBody OrderHeader updatedOrder) {
+        Optional<OrderHeader> existing = orderHeaderService.findOrderById(id);
+        if (existing.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Long version = existing.get().getVersion();
+        if (ifMatch != null && !OrderETags.ifMatch(ifMatch, id, version)) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
+        updatedOrder.setOrderId(id);
+        updatedOrder.setTenantId(existing.get().getTenantId());
+        updatedOrder.setVersion(version);
+        try {
+            OrderHeader saved = orderHeaderService.saveOrder(updatedOrder);
+            return ResponseEntity.ok().eTag(OrderETags.order(id, saved.getVersion(), true)).body(saved);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT)
+                    .body(e.getMessage());
+        }
+    }
+
+    // Partial update (see OrderPatch) written as targeted UPDATEs, without reading the order first. The version it
+    // applies to comes from If-Match or the body's version: 204 with the new ETag, 412 once the order has moved on.
+    @PatchMapping("/{id}")
+    public ResponseEntity<?> patchOrder(@PathVariable Long id,
+                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                        @RequestBody ObjectNode body) {
+        OptionalLong version = ifMatch != null ? OrderETags.version(ifMatch, id) : bodyVersion(body);
+        if (version.isEmpty()) {
+            return ifMatch != null
+                    ? ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build()
+                    : ResponseEntity.status(HttpStatus.PRECONDITION_REQUIRED).body("If-Match or version is required");
+        }
+        try {
+            OrderPatch patch = OrderPatch.parse(body, objectMapper);
+            if (patch.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Nothing to patch");
+            }
+            return orderHeaderService.patchOrder(id, version.getAsLong(), patch)
+                    .<ResponseEntity<?>>map(newVersion -> ResponseEntity.noContent()
+                            .eTag(OrderETags.order(id, newVersion, true)).build())
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        } catch (DataIntegrityViolationException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMostSpecificCause().getMessage());
+        }
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteOrder(@PathVariable Long id) {
-        orderHeaderService.deleteOrder(id);
+        orderPurgeService.deleteOrder(id);
         return ResponseEntity.noContent().build();
     }
+
+    // Deletes the listed orders, or every order with the given status and/or placed before the given time,
+    // a chunk of orders per transaction. Orders of other tenants are never touched.
+    @DeleteMapping
+    public ResponseEntity<?> deleteOrders(@RequestParam(required = false) List<Long> ids,
+                                          @RequestParam(required = false) String status,
+                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before) {
+        try {
+            if (ids != null && !ids.isEmpty()) {
+                if (status != null || before != null) {
+                    throw new IllegalArgumentException("ids cannot be combined with status or before");
+                }
+                return ResponseEntity.ok(orderPurgeService.deleteOrders(ids));
+            }
+            return ResponseEntity.ok(orderPurgeService.deleteOrders(status, before));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    private ResponseEntity<?> headerViews(String customerNumber, String status, String cursor, Integer limit,
+                                          String fields) {
+        FieldSelection selection = FieldSelection.parse(fields, OrderHeaderView.class);
+        return ResponseEntity.ok(selection.apply(
+                orderHeaderService.findOrderViews(customerNumber, status, cursor, limit, selection)));
+    }
+
+    private static OptionalLong bodyVersion(ObjectNode body) {
+        JsonNode version = body.get(OrderPatch.VERSION);
+        return version != null && version.isIntegralNumber() ? OptionalLong.of(version.asLong()) : OptionalLong.empty();
+    }
+
+    private static void requireNoFields(String fields) {
+        if (fields != null && !fields.isBlank()) {
+            throw new IllegalArgumentException("fields cannot be combined with lines=true");
+        }
+    }
 }
 
@@ -1,12 +1,17 @@
 package com.rollingstone.controller;
 
 
+import com.rollingstone.model.FieldSelection;
 import com.rollingstone.model.OrderLine;
+import com.rollingstone.model.OrderLineView;
 import com.rollingstone.service.OrderLineService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/order-lines")
@@ -18,21 +23,51 @@ public class OrderLineController {
         this.orderLineService = orderLineService;
     }
 
+    // Keyset-paginated: pass the returned nextCursor back as cursor to get the following page.
+    // fields=a,b,c writes only those columns (orderLineId always); all of them by default.
     @GetMapping
-    public List<OrderLine> getAllLines() {
-        return orderLineService.findAllLines();
+    public ResponseEntity<?> getAllLines(@RequestParam(required = false) String cursor,
+                                         @RequestParam(required = false) Integer limit,
+                                         @RequestParam(required = false) String fields) {
+        try {
+            FieldSelection selection = FieldSelection.parse(fields, OrderLineView.class);
+            return ResponseEntity.ok(selection.apply(orderLineService.findLines(cursor, limit, selection)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<OrderLine> getLineById(@PathVariable Long id) {
-        return orderLineService.findLineById(id)
+    public ResponseEntity<OrderLineView> getLineById(@PathVariable Long id) {
+        return orderLineService.findLineView(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    // Tagged with the owning order's version; a matching If-None-Match gets a 304 from a version-only query.
+    // An order that does not exist has no lines: an empty list, untagged.
     @GetMapping("/order/{orderId}")
-    public List<OrderLine> getLinesByOrderId(@PathVariable Long orderId) {
-        return orderLineService.findLinesByOrderId(orderId);
+    public ResponseEntity<?> getLinesByOrderId(@PathVariable Long orderId,
+                                               @RequestParam(required = false) String fields,
+                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        FieldSelection selection;
+        try {
+            selection = FieldSelection.parse(fields, OrderLineView.class);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+        if (ifNoneMatch != null) {
+            Optional<String> etag = orderLineService.findOrderVersion(orderId)
+                    .map(version -> OrderETags.lines(orderId, version, selection));
+            if (etag.isPresent() && !OrderETags.noneMatch(ifNoneMatch, etag.get())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag.get()).build();
+            }
+        }
+        return orderLineService.findLinesByOrderId(orderId)
+                .<ResponseEntity<?>>map(lines -> ResponseEntity.ok()
+                        .eTag(OrderETags.lines(orderId, lines.orderVersion(), selection))
+                        .body(selection.apply(lines.lines())))
+                .orElse(ResponseEntity.ok(List.of()));
     }
 
     @PostMapping
@@ -45,6 +80,9 @@ public class OrderLineController {
         return orderLineService.findLineById(id)
                 .map(existing -> {
                     updatedLine.setOrderLineId(id);
+                    updatedLine.setTenantId(existing.getTenantId());
+                    updatedLine.setOrderHeader(existing.getOrderHeader());
+                    updatedLine.setVersion(existing.getVersion());
                     return ResponseEntity.ok(orderLineService.saveLine(updatedLine));
                 }).orElse(ResponseEntity.notFound().build());
     }
@@ -1,27 +1,74 @@
 package com.rollingstone.controller;
 
 import com.rollingstone.security.DynamicIssuerRegistry;
+import com.rollingstone.security.PersistentIssuerRegistry;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 @RestController
 @RequestMapping("/admin/tenants")
 public class TenantAdminController {
 
     private final DynamicIssuerRegistry issuerRegistry;
+    // Writes go through the tenant table so every node picks them up
+    private final PersistentIssuerRegistry persistentRegistry;
 
-    public TenantAdminController(DynamicIssuerRegistry registry) {
+    public TenantAdminController(DynamicIssuerRegistry registry, PersistentIssuerRegistry persistentRegistry) {
         this.issuerRegistry = registry;
+        this.persistentRegistry = persistentRegistry;
     }
 
     @PostMapping("/register")
     public ResponseEntity<?> registerTenant(@RequestParam String tenantId, @RequestParam String issuerUrl) {
-        issuerRegistry.register(tenantId, issuerUrl);
+        try {
+            persistentRegistry.register(tenantId, issuerUrl);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
         return ResponseEntity.ok("Tenant registered: " + tenantId);
     }
 
+    // {"tenantId": "issuerUrl", ...}, all registered in one transaction or, on any conflict, none
+    @PostMapping("/bulk")
+    public ResponseEntity<?> registerTenants(@RequestBody Map<String, String> issuersByTenant) {
+        if (issuersByTenant.isEmpty()) {
+            return ResponseEntity.badRequest().body("No tenants given");
+        }
+        try {
+            persistentRegistry.registerAll(issuersByTenant);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+        return ResponseEntity.ok("Tenants registered: " + issuersByTenant.size());
+    }
+
+    // Moves the tenant to a new issuer: decoder, AuthenticationManager and cached tokens of the old one are dropped
+    @PutMapping("/{tenantId}")
+    public ResponseEntity<?> updateTenant(@PathVariable String tenantId, @RequestParam String issuerUrl) {
+        try {
+            persistentRegistry.update(tenantId, issuerUrl);
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+        return ResponseEntity.ok("Tenant updated: " + tenantId);
+    }
+
+    @DeleteMapping("/{tenantId}")
+    public ResponseEntity<?> deregisterTenant(@PathVariable String tenantId) {
+        try {
+            persistentRegistry.deregister(tenantId);
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
+        return ResponseEntity.ok("Tenant deregistered: " + tenantId);
+    }
+
     @GetMapping
     public Map<String, String> getAllTenants() {
         return issuerRegistry.getAllIssuers();
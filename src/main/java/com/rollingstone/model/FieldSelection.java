@@ -0,0 +1,98 @@
+package com.rollingstone.model;
+
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.BeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import org.springframework.http.converter.json.MappingJacksonValue;
+
+import java.lang.reflect.RecordComponent;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+// The columns a client asked for with ?fields=a,b,c, checked against a view record's components.
+// The first component is the view's id; it is always selected because keyset cursors are built from it.
+public final class FieldSelection {
+
+    private final Set<String> fields;
+    private final boolean all;
+
+    private FieldSelection(Set<String> fields, boolean all) {
+        this.fields = Collections.unmodifiableSet(fields);
+        this.all = all;
+    }
+
+    public static FieldSelection all(Class<? extends Record> view) {
+        return new FieldSelection(components(view), true);
+    }
+
+    // null or blank selects every component; unknown names are rejected
+    public static FieldSelection parse(String fields, Class<? extends Record> view) {
+        if (fields == null || fields.isBlank()) {
+            return all(view);
+        }
+        Set<String> known = components(view);
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add(known.iterator().next());
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!known.contains(name)) {
+                throw new IllegalArgumentException("Unknown field: " + name + ", expected any of " + known);
+            }
+            selected.add(name);
+        }
+        return new FieldSelection(selected, selected.size() == known.size());
+    }
+
+    public Set<String> fields() {
+        return fields;
+    }
+
+    public boolean isAll() {
+        return all;
+    }
+
+    public boolean contains(String field) {
+        return fields.contains(field);
+    }
+
+    // Wraps a response body so only the selected fields of any view in it are written
+    public MappingJacksonValue apply(Object body) {
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        value.setFilters(new Selected(this));
+        return value;
+    }
+
+    // The selection a view is being written under (see OrderJson), null when every field is wanted
+    public static FieldSelection of(SerializerProvider provider) {
+        return provider.getFilterProvider() instanceof Selected selected && !selected.selection.all
+                ? selected.selection
+                : null;
+    }
+
+    // Carries the selection through the ObjectWriter to the view serializers; there are no @JsonFilter ids
+    private static final class Selected extends FilterProvider {
+
+        private final FieldSelection selection;
+
+        private Selected(FieldSelection selection) {
+            this.selection = selection;
+        }
+
+        @Override
+        @Deprecated
+        public BeanPropertyFilter findFilter(Object filterId) {
+            return null;
+        }
+    }
+
+    private static Set<String> components(Class<? extends Record> view) {
+        Set<String> names = new LinkedHashSet<>();
+        Arrays.stream(view.getRecordComponents()).map(RecordComponent::getName).forEach(names::add);
+        return names;
+    }
+}
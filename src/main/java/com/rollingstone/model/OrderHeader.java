@@ -2,22 +2,56 @@ package com.rollingstone.model;
 
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.rollingstone.service.OrderStatusListener;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.TenantId;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "order_header")
+// Every query is restricted to the current tenant, so each index leads with tenant_id and the
+// (tenant, filter, order_id) keyset pages seek within one tenant's rows instead of scanning everyone's
+@Table(name = "order_header", indexes = {
+        @Index(name = "idx_order_header_tenant_order", columnList = "tenant_id, order_id"),
+        @Index(name = "idx_order_header_tenant_customer_order", columnList = "tenant_id, customer_number, order_id"),
+        @Index(name = "idx_order_header_tenant_status_order", columnList = "tenant_id, order_status, order_id")
+}, uniqueConstraints = @UniqueConstraint(name = "uk_order_header_tenant_order_number",
+        columnNames = {"tenant_id", "order_number"}))
+@EntityListeners(OrderStatusListener.class)
+@JsonSerialize(using = OrderJson.OrderHeaderSerializer.class)
 public class OrderHeader {
 
+    // Ids handed out per id_allocator round trip, for both orders and lines
+    public static final int ID_ALLOCATION_SIZE = 100;
+
+    // Ids come from a pooled allocator (one table round trip per ID_ALLOCATION_SIZE ids) so inserts can be
+    // JDBC-batched; IDENTITY would force one INSERT per row to read back the key
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "order_header_ids")
+    @TableGenerator(name = "order_header_ids", table = "id_allocator", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "order_header", allocationSize = ID_ALLOCATION_SIZE)
     @Column(name = "order_id")
     private Long orderId;
 
-    @Column(name = "order_number", nullable = false, unique = true)
+    // Set by Hibernate from the tenant of the current request (TenantIdentifierResolver); never client-supplied
+    @TenantId
+    @Column(name = "tenant_id", nullable = false, updatable = false)
+    @JsonIgnore
+    private String tenantId;
+
+    // Bumped on every write to the order or any of its lines, so it versions the whole aggregate; ETags are
+    // built from it and concurrent writes to one order fail instead of overwriting each other
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    @Column(name = "order_number", nullable = false)
     private String orderNumber;
 
     @Column(name = "customer_number", nullable = false)
@@ -66,6 +100,11 @@ public class OrderHeader {
     @JsonManagedReference
     private List<OrderLine> orderLines;
 
+    // orderStatus as last read from or written to the database, for OrderStatusListener's deltas
+    @Transient
+    @JsonIgnore
+    private String persistedStatus;
+
     public OrderHeader() {
     }
 
@@ -96,6 +135,22 @@ public class OrderHeader {
         this.orderId = orderId;
     }
 
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public void setTenantId(String tenantId) {
+        this.tenantId = tenantId;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getOrderNumber() {
         return orderNumber;
     }
@@ -216,6 +271,18 @@ public class OrderHeader {
         this.orderLines = orderLines;
     }
 
+    @JsonIgnore
+    public String getPersistedStatus() {
+        return persistedStatus;
+    }
+
+    @PostLoad
+    @PostPersist
+    @PostUpdate
+    void rememberPersistedStatus() {
+        persistedStatus = orderStatus;
+    }
+
     @Override
     public String toString() {
         return "OrderHeader{" +
@@ -0,0 +1,29 @@
+package com.rollingstone.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Read-only order header columns, selected straight into a record: no managed entity, snapshot or proxy.
+// Components not selected are null and left out of the JSON by its serializer (see FieldSelection.of).
+@JsonSerialize(using = OrderJson.OrderHeaderViewSerializer.class)
+public record OrderHeaderView(
+        Long orderId,
+        String orderNumber,
+        String customerNumber,
+        @JsonFormat(pattern = "MM-dd-yyyy HH:mm:ss") LocalDateTime orderDate,
+        String orderStatus,
+        BigDecimal orderTotal,
+        String currency,
+        String shippingMethod,
+        String shippingAddress,
+        String billingAddress,
+        String paymentMethod,
+        String createdBy,
+        @JsonFormat(pattern = "MM-dd-yyyy HH:mm:ss") LocalDateTime createdAt,
+        String updatedBy,
+        @JsonFormat(pattern = "MM-dd-yyyy HH:mm:ss") LocalDateTime updatedAt,
+        Long version) {
+}
@@ -0,0 +1,302 @@
+package com.rollingstone.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.hibernate.Hibernate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+// Hand-written JSON writers for the order model, attached with @JsonSerialize so every ObjectMapper uses them.
+// They produce exactly what the reflective bean serializers did (same properties, order, nulls and date
+// format; OrderJsonTest holds them to it) without getter reflection, per-property dispatch or a String per date:
+// names are pre-quoted once, dates are written from a char buffer.
+public final class OrderJson {
+
+    // ObjectWriter attribute: when TRUE, orders are written without their orderLines property
+    public static final String WITHOUT_ORDER_LINES = OrderJson.class.getName() + ".withoutOrderLines";
+
+    // As in the @JsonFormat patterns on the model, which still govern reading
+    public static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("MM-dd-yyyy HH:mm:ss");
+
+    private static final SerializableString ORDER_ID = new SerializedString("orderId");
+    private static final SerializableString ORDER_LINE_ID = new SerializedString("orderLineId");
+    private static final SerializableString VERSION = new SerializedString("version");
+    private static final SerializableString ORDER_NUMBER = new SerializedString("orderNumber");
+    private static final SerializableString CUSTOMER_NUMBER = new SerializedString("customerNumber");
+    private static final SerializableString ORDER_DATE = new SerializedString("orderDate");
+    private static final SerializableString ORDER_STATUS = new SerializedString("orderStatus");
+    private static final SerializableString ORDER_TOTAL = new SerializedString("orderTotal");
+    private static final SerializableString CURRENCY = new SerializedString("currency");
+    private static final SerializableString SHIPPING_METHOD = new SerializedString("shippingMethod");
+    private static final SerializableString SHIPPING_ADDRESS = new SerializedString("shippingAddress");
+    private static final SerializableString BILLING_ADDRESS = new SerializedString("billingAddress");
+    private static final SerializableString PAYMENT_METHOD = new SerializedString("paymentMethod");
+    private static final SerializableString CREATED_BY = new SerializedString("createdBy");
+    private static final SerializableString CREATED_AT = new SerializedString("createdAt");
+    private static final SerializableString UPDATED_BY = new SerializedString("updatedBy");
+    private static final SerializableString UPDATED_AT = new SerializedString("updatedAt");
+    private static final SerializableString ORDER_LINES = new SerializedString("orderLines");
+    private static final SerializableString LINE_NUMBER = new SerializedString("lineNumber");
+    private static final SerializableString PRODUCT_ID = new SerializedString("productId");
+    private static final SerializableString PRODUCT_DESCRIPTION = new SerializedString("productDescription");
+    private static final SerializableString QUANTITY = new SerializedString("quantity");
+    private static final SerializableString UOM = new SerializedString("uom");
+    private static final SerializableString UNIT_PRICE = new SerializedString("unitPrice");
+    private static final SerializableString ITEM_TOTAL = new SerializedString("itemTotal");
+    private static final SerializableString STATUS = new SerializedString("status");
+    private static final SerializableString DISCOUNT_AMOUNT = new SerializedString("discountAmount");
+    private static final SerializableString TAX_AMOUNT = new SerializedString("taxAmount");
+
+    private OrderJson() {
+    }
+
+    public static final class OrderHeaderSerializer extends StdSerializer<OrderHeader> {
+
+        public OrderHeaderSerializer() {
+            super(OrderHeader.class);
+        }
+
+        @Override
+        public void serialize(OrderHeader order, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            // An uninitialized proxy is written as null, as the Hibernate module does, rather than loaded
+            if (!Hibernate.isInitialized(order)) {
+                gen.writeNull();
+                return;
+            }
+            gen.writeStartObject(order);
+            number(gen, null, ORDER_ID, order.getOrderId());
+            number(gen, null, VERSION, order.getVersion());
+            string(gen, null, ORDER_NUMBER, order.getOrderNumber());
+            string(gen, null, CUSTOMER_NUMBER, order.getCustomerNumber());
+            date(gen, null, ORDER_DATE, order.getOrderDate());
+            string(gen, null, ORDER_STATUS, order.getOrderStatus());
+            number(gen, null, ORDER_TOTAL, order.getOrderTotal());
+            string(gen, null, CURRENCY, order.getCurrency());
+            string(gen, null, SHIPPING_METHOD, order.getShippingMethod());
+            string(gen, null, SHIPPING_ADDRESS, order.getShippingAddress());
+            string(gen, null, BILLING_ADDRESS, order.getBillingAddress());
+            string(gen, null, PAYMENT_METHOD, order.getPaymentMethod());
+            string(gen, null, CREATED_BY, order.getCreatedBy());
+            date(gen, null, CREATED_AT, order.getCreatedAt());
+            string(gen, null, UPDATED_BY, order.getUpdatedBy());
+            date(gen, null, UPDATED_AT, order.getUpdatedAt());
+            if (!Boolean.TRUE.equals(provider.getAttribute(WITHOUT_ORDER_LINES))) {
+                gen.writeFieldName(ORDER_LINES);
+                List<OrderLine> lines = order.getOrderLines();
+                // Lines that were never fetched are written as null instead of being loaded
+                if (lines == null || !Hibernate.isInitialized(lines)) {
+                    gen.writeNull();
+                } else {
+                    gen.writeStartArray(lines, lines.size());
+                    for (OrderLine line : lines) {
+                        if (line == null) {
+                            gen.writeNull();
+                        } else {
+                            writeLine(line, gen);
+                        }
+                    }
+                    gen.writeEndArray();
+                }
+            }
+            gen.writeEndObject();
+        }
+    }
+
+    public static final class OrderLineSerializer extends StdSerializer<OrderLine> {
+
+        public OrderLineSerializer() {
+            super(OrderLine.class);
+        }
+
+        @Override
+        public void serialize(OrderLine line, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            writeLine(line, gen);
+        }
+    }
+
+    // Selected components only when written under a FieldSelection, every component otherwise
+    public static final class OrderHeaderViewSerializer extends StdSerializer<OrderHeaderView> {
+
+        public OrderHeaderViewSerializer() {
+            super(OrderHeaderView.class);
+        }
+
+        @Override
+        public void serialize(OrderHeaderView view, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            FieldSelection selection = FieldSelection.of(provider);
+            gen.writeStartObject(view);
+            number(gen, selection, ORDER_ID, view.orderId());
+            string(gen, selection, ORDER_NUMBER, view.orderNumber());
+            string(gen, selection, CUSTOMER_NUMBER, view.customerNumber());
+            date(gen, selection, ORDER_DATE, view.orderDate());
+            string(gen, selection, ORDER_STATUS, view.orderStatus());
+            number(gen, selection, ORDER_TOTAL, view.orderTotal());
+            string(gen, selection, CURRENCY, view.currency());
+            string(gen, selection, SHIPPING_METHOD, view.shippingMethod());
+            string(gen, selection, SHIPPING_ADDRESS, view.shippingAddress());
+            string(gen, selection, BILLING_ADDRESS, view.billingAddress());
+            string(gen, selection, PAYMENT_METHOD, view.paymentMethod());
+            string(gen, selection, CREATED_BY, view.createdBy());
+            date(gen, selection, CREATED_AT, view.createdAt());
+            string(gen, selection, UPDATED_BY, view.updatedBy());
+            date(gen, selection, UPDATED_AT, view.updatedAt());
+            number(gen, selection, VERSION, view.version());
+            gen.writeEndObject();
+        }
+    }
+
+    public static final class OrderLineViewSerializer extends StdSerializer<OrderLineView> {
+
+        public OrderLineViewSerializer() {
+            super(OrderLineView.class);
+        }
+
+        @Override
+        public void serialize(OrderLineView view, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            FieldSelection selection = FieldSelection.of(provider);
+            gen.writeStartObject(view);
+            number(gen, selection, ORDER_LINE_ID, view.orderLineId());
+            number(gen, selection, ORDER_ID, view.orderId());
+            number(gen, selection, LINE_NUMBER, view.lineNumber());
+            string(gen, selection, PRODUCT_ID, view.productId());
+            string(gen, selection, PRODUCT_DESCRIPTION, view.productDescription());
+            number(gen, selection, QUANTITY, view.quantity());
+            string(gen, selection, UOM, view.uom());
+            number(gen, selection, UNIT_PRICE, view.unitPrice());
+            number(gen, selection, ITEM_TOTAL, view.itemTotal());
+            string(gen, selection, STATUS, view.status());
+            number(gen, selection, DISCOUNT_AMOUNT, view.discountAmount());
+            number(gen, selection, TAX_AMOUNT, view.taxAmount());
+            string(gen, selection, CREATED_BY, view.createdBy());
+            date(gen, selection, CREATED_AT, view.createdAt());
+            string(gen, selection, UPDATED_BY, view.updatedBy());
+            date(gen, selection, UPDATED_AT, view.updatedAt());
+            number(gen, selection, VERSION, view.version());
+            gen.writeEndObject();
+        }
+    }
+
+    // The owning order is a back reference and never written
+    private static void writeLine(OrderLine line, JsonGenerator gen) throws IOException {
+        gen.writeStartObject(line);
+        number(gen, null, ORDER_LINE_ID, line.getOrderLineId());
+        number(gen, null, VERSION, line.getVersion());
+        number(gen, null, LINE_NUMBER, line.getLineNumber());
+        string(gen, null, PRODUCT_ID, line.getProductId());
+        string(gen, null, PRODUCT_DESCRIPTION, line.getProductDescription());
+        number(gen, null, QUANTITY, line.getQuantity());
+        string(gen, null, UOM, line.getUom());
+        number(gen, null, UNIT_PRICE, line.getUnitPrice());
+        number(gen, null, ITEM_TOTAL, line.getItemTotal());
+        string(gen, null, STATUS, line.getStatus());
+        number(gen, null, DISCOUNT_AMOUNT, line.getDiscountAmount());
+        number(gen, null, TAX_AMOUNT, line.getTaxAmount());
+        string(gen, null, CREATED_BY, line.getCreatedBy());
+        date(gen, null, CREATED_AT, line.getCreatedAt());
+        string(gen, null, UPDATED_BY, line.getUpdatedBy());
+        date(gen, null, UPDATED_AT, line.getUpdatedAt());
+        gen.writeEndObject();
+    }
+
+    // A null selection writes every field
+    private static boolean skipped(FieldSelection selection, SerializableString name) {
+        return selection != null && !selection.contains(name.getValue());
+    }
+
+    private static void string(JsonGenerator gen, FieldSelection selection, SerializableString name, String value)
+            throws IOException {
+        if (skipped(selection, name)) {
+            return;
+        }
+        gen.writeFieldName(name);
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeString(value);
+        }
+    }
+
+    private static void number(JsonGenerator gen, FieldSelection selection, SerializableString name, Long value)
+            throws IOException {
+        if (skipped(selection, name)) {
+            return;
+        }
+        gen.writeFieldName(name);
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value.longValue());
+        }
+    }
+
+    private static void number(JsonGenerator gen, FieldSelection selection, SerializableString name, Integer value)
+            throws IOException {
+        if (skipped(selection, name)) {
+            return;
+        }
+        gen.writeFieldName(name);
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value.intValue());
+        }
+    }
+
+    private static void number(JsonGenerator gen, FieldSelection selection, SerializableString name, BigDecimal value)
+            throws IOException {
+        if (skipped(selection, name)) {
+            return;
+        }
+        gen.writeFieldName(name);
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value);
+        }
+    }
+
+    private static void date(JsonGenerator gen, FieldSelection selection, SerializableString name, LocalDateTime value)
+            throws IOException {
+        if (skipped(selection, name)) {
+            return;
+        }
+        gen.writeFieldName(name);
+        if (value == null) {
+            gen.writeNull();
+            return;
+        }
+        int year = value.getYear();
+        // yyyy is year-of-era: anything outside four positive digits goes through the formatter
+        if (year < 1 || year > 9999) {
+            gen.writeString(DATE_FORMAT.format(value));
+            return;
+        }
+        char[] text = new char[19];
+        digits(text, 0, value.getMonthValue(), 2);
+        text[2] = '-';
+        digits(text, 3, value.getDayOfMonth(), 2);
+        text[5] = '-';
+        digits(text, 6, year, 4);
+        text[10] = ' ';
+        digits(text, 11, value.getHour(), 2);
+        text[13] = ':';
+        digits(text, 14, value.getMinute(), 2);
+        text[16] = ':';
+        digits(text, 17, value.getSecond(), 2);
+        gen.writeString(text, 0, text.length);
+    }
+
+    private static void digits(char[] text, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            text[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
@@ -3,20 +3,43 @@ package com.rollingstone.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.TenantId;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "order_line")
+@Table(name = "order_line", indexes = {
+        @Index(name = "idx_order_line_tenant_line", columnList = "tenant_id, order_line_id"),
+        @Index(name = "idx_order_line_tenant_order", columnList = "tenant_id, order_id")
+})
+@JsonSerialize(using = OrderJson.OrderLineSerializer.class)
 public class OrderLine {
 
+    // Pooled like OrderHeader's ids, so line inserts batch too
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "order_line_ids")
+    @TableGenerator(name = "order_line_ids", table = "id_allocator", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "order_line",
+            allocationSize = OrderHeader.ID_ALLOCATION_SIZE)
     @Column(name = "order_line_id")
     private Long orderLineId;
 
+    // Same tenant as the owning order
+    @TenantId
+    @Column(name = "tenant_id", nullable = false, updatable = false)
+    @JsonIgnore
+    private String tenantId;
+
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "order_id", nullable = false)
     @JsonBackReference
@@ -96,6 +119,22 @@ public class OrderLine {
         this.orderLineId = orderLineId;
     }
 
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public void setTenantId(String tenantId) {
+        this.tenantId = tenantId;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public OrderHeader getOrderHeader() {
         return orderHeader;
     }
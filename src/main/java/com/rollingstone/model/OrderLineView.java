@@ -0,0 +1,29 @@
+package com.rollingstone.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Read-only order line columns plus the owning order's id (read from the foreign key, no join)
+@JsonSerialize(using = OrderJson.OrderLineViewSerializer.class)
+public record OrderLineView(
+        Long orderLineId,
+        Long orderId,
+        Integer lineNumber,
+        String productId,
+        String productDescription,
+        BigDecimal quantity,
+        String uom,
+        BigDecimal unitPrice,
+        BigDecimal itemTotal,
+        String status,
+        BigDecimal discountAmount,
+        BigDecimal taxAmount,
+        String createdBy,
+        @JsonFormat(pattern = "MM-dd-yyyy HH:mm:ss") LocalDateTime createdAt,
+        String updatedBy,
+        @JsonFormat(pattern = "MM-dd-yyyy HH:mm:ss") LocalDateTime updatedAt,
+        Long version) {
+}
@@ -0,0 +1,123 @@
+package com.rollingstone.model;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.beans.PropertyAccessor;
+import org.springframework.beans.PropertyAccessorFactory;
+
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// A partial update of an order: only the header columns present in the body, plus per-line changes.
+//   {"orderStatus": "PAID",
+//    "orderLines": [{"orderLineId": 7, "quantity": 3}, {"lineNumber": 4, "productId": "P9", ...}],
+//    "removedOrderLines": [8]}
+// Lines with an orderLineId are updated column by column, lines without one are added. Values are read with
+// the entities' own Jackson mapping (date formats included); ids, versions and tenants cannot be patched.
+public record OrderPatch(Map<String, Object> header, Map<Long, Map<String, Object>> lineUpdates,
+                         List<OrderLine> newLines, Set<Long> removedLines) {
+
+    public static final String LINES = "orderLines";
+    public static final String REMOVED_LINES = "removedOrderLines";
+    // Body field naming the version the patch applies to, when not given as If-Match
+    public static final String VERSION = "version";
+
+    // Patchable columns are the ones the read views expose, less ids and the version
+    private static final Set<String> HEADER_FIELDS = columns(OrderHeaderView.class, "orderId", VERSION);
+    private static final Set<String> LINE_FIELDS = columns(OrderLineView.class, "orderLineId", "orderId", VERSION);
+
+    public boolean isEmpty() {
+        return header.isEmpty() && lineUpdates.isEmpty() && newLines.isEmpty() && removedLines.isEmpty();
+    }
+
+    public static OrderPatch parse(ObjectNode body, ObjectMapper objectMapper) {
+        ObjectNode headerNode = body.deepCopy();
+        JsonNode lines = headerNode.remove(LINES);
+        JsonNode removed = headerNode.remove(REMOVED_LINES);
+        headerNode.remove(VERSION);
+        Map<String, Object> header = changes(headerNode, OrderHeader.class, HEADER_FIELDS, objectMapper);
+
+        Map<Long, Map<String, Object>> lineUpdates = new LinkedHashMap<>();
+        List<OrderLine> newLines = new ArrayList<>();
+        for (JsonNode line : array(lines, LINES)) {
+            if (!line.isObject()) {
+                throw new IllegalArgumentException(LINES + " must hold objects");
+            }
+            ObjectNode lineNode = ((ObjectNode) line).deepCopy();
+            JsonNode id = lineNode.remove("orderLineId");
+            if (id == null || id.isNull()) {
+                newLines.add(read(lineNode, OrderLine.class, objectMapper));
+            } else {
+                lineUpdates.put(id(id, LINES), changes(lineNode, OrderLine.class, LINE_FIELDS, objectMapper));
+            }
+        }
+
+        Set<Long> removedLines = new LinkedHashSet<>();
+        for (JsonNode id : array(removed, REMOVED_LINES)) {
+            removedLines.add(id(id, REMOVED_LINES));
+        }
+        return new OrderPatch(header, lineUpdates, newLines, removedLines);
+    }
+
+    // Field name -> new value (null clears the column), in body order
+    private static Map<String, Object> changes(ObjectNode node, Class<?> entity, Set<String> allowed,
+                                               ObjectMapper objectMapper) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        if (node.isEmpty()) {
+            return changes;
+        }
+        Object decoded = read(node, entity, objectMapper);
+        PropertyAccessor accessor = PropertyAccessorFactory.forDirectFieldAccess(decoded);
+        Iterator<String> names = node.fieldNames();
+        while (names.hasNext()) {
+            String name = names.next();
+            if (!allowed.contains(name)) {
+                throw new IllegalArgumentException("Field cannot be patched: " + name + ", expected any of " + allowed);
+            }
+            changes.put(name, accessor.getPropertyValue(name));
+        }
+        return changes;
+    }
+
+    private static <T> T read(ObjectNode node, Class<T> type, ObjectMapper objectMapper) {
+        try {
+            return objectMapper.treeToValue(node, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid patch: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    private static Iterable<JsonNode> array(JsonNode node, String name) {
+        if (node == null || node.isNull()) {
+            return List.of();
+        }
+        if (!node.isArray()) {
+            throw new IllegalArgumentException(name + " must be an array");
+        }
+        return node;
+    }
+
+    private static long id(JsonNode id, String name) {
+        if (!id.isIntegralNumber() || !id.canConvertToLong()) {
+            throw new IllegalArgumentException("Invalid order line id in " + name + ": " + id);
+        }
+        return id.asLong();
+    }
+
+    private static Set<String> columns(Class<? extends Record> view, String... excluded) {
+        Set<String> names = new LinkedHashSet<>();
+        Arrays.stream(view.getRecordComponents()).map(RecordComponent::getName).forEach(names::add);
+        names.removeAll(Arrays.asList(excluded));
+        return Collections.unmodifiableSet(names);
+    }
+}
@@ -0,0 +1,62 @@
+package com.rollingstone.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+// The tenant registry of record. A deregistered tenant keeps its row with a null issuer_url, so nodes polling for
+// changes see the removal; change_version is the TenantRegistryClock value of the write that last touched the row.
+@Table(name = "tenant_issuer", indexes = {
+        @Index(name = "idx_tenant_issuer_change_version", columnList = "change_version")
+}, uniqueConstraints = @UniqueConstraint(name = "uk_tenant_issuer_issuer_url", columnNames = "issuer_url"))
+public class TenantIssuer {
+
+    @Id
+    @Column(name = "tenant_id")
+    private String tenantId;
+
+    @Column(name = "issuer_url")
+    private String issuerUrl;
+
+    @Column(name = "change_version", nullable = false)
+    private long changeVersion;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public TenantIssuer() {
+    }
+
+    public TenantIssuer(String tenantId) {
+        this.tenantId = tenantId;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public String getIssuerUrl() {
+        return issuerUrl;
+    }
+
+    public void setIssuerUrl(String issuerUrl) {
+        this.issuerUrl = issuerUrl;
+    }
+
+    public long getChangeVersion() {
+        return changeVersion;
+    }
+
+    public void setChangeVersion(long changeVersion) {
+        this.changeVersion = changeVersion;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
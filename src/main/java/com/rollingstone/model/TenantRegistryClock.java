@@ -0,0 +1,39 @@
+package com.rollingstone.model;
+
+import jakarta.persistence.*;
+
+@Entity
+// A single row counting writes to tenant_issuer. Writers lock it for the length of their transaction, so change
+// versions are handed out, and committed, strictly in order: once a reader sees version n, every write below n
+// is visible too, and polling for versions above the last one seen never skips a change.
+@Table(name = "tenant_registry_clock")
+public class TenantRegistryClock {
+
+    public static final int ID = 1;
+
+    @Id
+    @Column(name = "id")
+    private int id;
+
+    @Column(name = "change_version", nullable = false)
+    private long changeVersion;
+
+    public TenantRegistryClock() {
+    }
+
+    public TenantRegistryClock(int id) {
+        this.id = id;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public long getChangeVersion() {
+        return changeVersion;
+    }
+
+    public void setChangeVersion(long changeVersion) {
+        this.changeVersion = changeVersion;
+    }
+}
@@ -2,17 +2,98 @@ package com.rollingstone.repository;
 
 
 import com.rollingstone.model.OrderHeader;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderHeaderRepository extends JpaRepository<OrderHeader, Long> {
 
-    List<OrderHeader> findByCustomerNumber(String customerNumber);
+    // Keyset pages: seek past the last order_id seen instead of skipping OFFSET rows
+    List<OrderHeader> findByOrderIdGreaterThanOrderByOrderIdAsc(Long afterOrderId, Limit limit);
 
-    List<OrderHeader> findByOrderStatus(String orderStatus);
+    List<OrderHeader> findByCustomerNumberAndOrderIdGreaterThanOrderByOrderIdAsc(String customerNumber,
+                                                                                Long afterOrderId, Limit limit);
+
+    List<OrderHeader> findByOrderStatusAndOrderIdGreaterThanOrderByOrderIdAsc(String orderStatus,
+                                                                             Long afterOrderId, Limit limit);
+
+    // Header plus its lines in one join query
+    @EntityGraph(attributePaths = "orderLines")
+    Optional<OrderHeader> findWithLinesByOrderId(Long orderId);
+
+    // Just the version, for answering conditional requests without loading the order
+    @Query("select o.version from OrderHeader o where o.orderId = :id")
+    Optional<Long> findVersionByOrderId(@Param("id") Long orderId);
+
+    // Status and owner of the order as of version, for partial updates that change the status
+    Optional<StatusSnapshot> findStatusByOrderIdAndVersion(Long orderId, Long version);
+
+    // Increments the order's version when the transaction commits, for writes that only touch its lines
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    Optional<OrderHeader> findWithVersionIncrementByOrderId(Long orderId);
+
+    // Lines for a page of headers in one join query; headers already loaded get their lines filled in
+    @EntityGraph(attributePaths = "orderLines")
+    List<OrderHeader> findWithLinesByOrderIdIn(Collection<Long> orderIds);
+
+    // Orders to delete, locked until the deleting transaction ends so their statuses cannot change underneath it.
+    // Only id, owner and status are read; no entities are loaded.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o.orderId as orderId, o.tenantId as tenantId, o.orderStatus as orderStatus from OrderHeader o"
+            + " where o.orderId in :ids")
+    List<StatusSnapshot> findForDelete(@Param("ids") Collection<Long> orderIds);
+
+    // Next chunk of orders matching a purge filter, after afterOrderId; null filters match everything and
+    // orderDate is compared as orderDate < before
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o.orderId as orderId, o.tenantId as tenantId, o.orderStatus as orderStatus from OrderHeader o"
+            + " where o.orderId > :after"
+            + " and (:status is null or o.orderStatus = :status)"
+            + " and (:before is null or o.orderDate < :before)"
+            + " order by o.orderId")
+    List<StatusSnapshot> findForDelete(@Param("after") Long afterOrderId, @Param("status") String status,
+                                       @Param("before") LocalDateTime before, Limit limit);
+
+    interface StatusSnapshot {
+
+        Long getOrderId();
+
+        String getTenantId();
+
+        String getOrderStatus();
+    }
+
+    // Export cursor: rows arrive fetch-size at a time and are loaded read-only (no dirty-checking snapshots).
+    // Null filters match everything; orderDate range is [from, to).
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select o from OrderHeader o"
+            + " where (:status is null or o.orderStatus = :status)"
+            + " and (:customerNumber is null or o.customerNumber = :customerNumber)"
+            + " and (:from is null or o.orderDate >= :from)"
+            + " and (:to is null or o.orderDate < :to)"
+            + " order by o.orderId")
+    Stream<OrderHeader> streamForExport(@Param("status") String status,
+                                        @Param("customerNumber") String customerNumber,
+                                        @Param("from") LocalDateTime from,
+                                        @Param("to") LocalDateTime to);
 
 }
 
@@ -5,11 +5,8 @@ import com.rollingstone.model.OrderLine;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
-import java.util.List;
-
+// Writes only; line reads go through OrderViewRepository
 @Repository
 public interface OrderLineRepository extends JpaRepository<OrderLine, Long> {
 
-    List<OrderLine> findByOrderHeaderOrderId(Long orderId);
-
 }
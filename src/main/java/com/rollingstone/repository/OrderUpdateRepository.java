@@ -0,0 +1,74 @@
+package com.rollingstone.repository;
+
+import com.rollingstone.model.OrderHeader;
+import com.rollingstone.model.OrderLine;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+// Targeted UPDATE/DELETE statements for partial updates: only the given columns are written, nothing is loaded
+// first, and the version is bumped in the same statement. Entity listeners do not see these writes.
+@Repository
+public class OrderUpdateRepository {
+
+    private final EntityManager entityManager;
+
+    public OrderUpdateRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    // 0 when the order does not exist (for this tenant) or is no longer at version
+    public int updateHeader(long orderId, long version, Map<String, Object> changes) {
+        Query update = entityManager.createQuery("update OrderHeader o set " + assignments("o", changes)
+                + "o.version = o.version + 1 where o.orderId = :id and o.version = :version");
+        changes.forEach(update::setParameter);
+        return update.setParameter("id", orderId).setParameter("version", version).executeUpdate();
+    }
+
+    // 0 when the line does not belong to the order
+    public int updateLine(long orderId, long orderLineId, Map<String, Object> changes) {
+        Query update = entityManager.createQuery("update OrderLine l set " + assignments("l", changes)
+                + "l.version = l.version + 1 where l.orderLineId = :id and l.orderHeader.orderId = :orderId");
+        changes.forEach(update::setParameter);
+        return update.setParameter("id", orderLineId).setParameter("orderId", orderId).executeUpdate();
+    }
+
+    public int deleteLines(long orderId, Collection<Long> orderLineIds) {
+        return entityManager.createQuery("delete from OrderLine l"
+                        + " where l.orderLineId in :ids and l.orderHeader.orderId = :orderId")
+                .setParameter("ids", orderLineIds)
+                .setParameter("orderId", orderId)
+                .executeUpdate();
+    }
+
+    // Lines first (one statement for all of the orders), then the headers; the number of orders deleted
+    public int deleteOrders(Collection<Long> orderIds) {
+        entityManager.createQuery("delete from OrderLine l where l.orderHeader.orderId in :ids")
+                .setParameter("ids", orderIds)
+                .executeUpdate();
+        return entityManager.createQuery("delete from OrderHeader o where o.orderId in :ids")
+                .setParameter("ids", orderIds)
+                .executeUpdate();
+    }
+
+    // New lines for an existing order; the order is referenced by id, not loaded
+    public void addLines(long orderId, List<OrderLine> lines) {
+        OrderHeader order = entityManager.getReference(OrderHeader.class, orderId);
+        for (OrderLine line : lines) {
+            line.setOrderHeader(order);
+            entityManager.persist(line);
+        }
+    }
+
+    // Field names come from OrderPatch's allow-list, so they are safe to splice in; each value is bound by name
+    private static String assignments(String alias, Map<String, Object> changes) {
+        StringBuilder set = new StringBuilder();
+        changes.keySet().forEach(field -> set.append(alias).append('.').append(field)
+                .append(" = :").append(field).append(", "));
+        return set.toString();
+    }
+}
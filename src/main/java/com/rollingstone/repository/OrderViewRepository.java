@@ -0,0 +1,126 @@
+package com.rollingstone.repository;
+
+import com.rollingstone.model.FieldSelection;
+import com.rollingstone.model.OrderHeaderView;
+import com.rollingstone.model.OrderLineView;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import org.springframework.stereotype.Repository;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Read paths that select only the requested columns into view records. Rows come back as tuples, so nothing
+// is added to the persistence context and there is no dirty checking, proxying or cascade bookkeeping.
+@Repository
+public class OrderViewRepository {
+
+    // View components are named after the entity properties they read, except where listed here
+    private static final Map<String, String> LINE_PATHS = Map.of("orderId", "l.orderHeader.orderId");
+
+    private final EntityManager entityManager;
+
+    public OrderViewRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    // Keyset page after afterOrderId, optionally filtered by customer and/or status (null matches all)
+    public List<OrderHeaderView> findHeaders(String customerNumber, String status, long afterOrderId, int maxRows,
+                                             FieldSelection selection) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        StringBuilder where = new StringBuilder("o.orderId > :after");
+        params.put("after", afterOrderId);
+        if (customerNumber != null) {
+            where.append(" and o.customerNumber = :customerNumber");
+            params.put("customerNumber", customerNumber);
+        }
+        if (status != null) {
+            where.append(" and o.orderStatus = :status");
+            params.put("status", status);
+        }
+        return select(OrderHeaderView.class, "OrderHeader o", "o", Map.of(), where + " order by o.orderId",
+                params, maxRows, selection);
+    }
+
+    public Optional<OrderHeaderView> findHeader(Long orderId) {
+        return select(OrderHeaderView.class, "OrderHeader o", "o", Map.of(), "o.orderId = :id",
+                Map.of("id", orderId), 1, FieldSelection.all(OrderHeaderView.class)).stream().findFirst();
+    }
+
+    // Keyset page after afterOrderLineId, optionally restricted to one order; maxRows null reads to the end
+    public List<OrderLineView> findLines(Long orderId, long afterOrderLineId, Integer maxRows,
+                                         FieldSelection selection) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        StringBuilder where = new StringBuilder("l.orderLineId > :after");
+        params.put("after", afterOrderLineId);
+        if (orderId != null) {
+            where.append(" and l.orderHeader.orderId = :orderId");
+            params.put("orderId", orderId);
+        }
+        return select(OrderLineView.class, "OrderLine l", "l", LINE_PATHS, where + " order by l.orderLineId",
+                params, maxRows, selection);
+    }
+
+    public Optional<OrderLineView> findLine(Long orderLineId) {
+        return select(OrderLineView.class, "OrderLine l", "l", LINE_PATHS, "l.orderLineId = :id",
+                Map.of("id", orderLineId), 1, FieldSelection.all(OrderLineView.class)).stream().findFirst();
+    }
+
+    private <V extends Record> List<V> select(Class<V> view, String from, String alias, Map<String, String> paths,
+                                              String where, Map<String, Object> params, Integer maxRows,
+                                              FieldSelection selection) {
+        RecordComponent[] components = view.getRecordComponents();
+        StringBuilder jpql = new StringBuilder("select ");
+        for (String field : selection.fields()) {
+            if (jpql.length() > "select ".length()) {
+                jpql.append(", ");
+            }
+            jpql.append(paths.getOrDefault(field, alias + "." + field)).append(" as ").append(field);
+        }
+        jpql.append(" from ").append(from).append(" where ").append(where);
+        TypedQuery<Tuple> query = entityManager.createQuery(jpql.toString(), Tuple.class);
+        params.forEach(query::setParameter);
+        if (maxRows != null) {
+            query.setMaxResults(maxRows);
+        }
+
+        Constructor<V> constructor = canonicalConstructor(view, components);
+        List<V> views = new ArrayList<>();
+        for (Tuple row : query.getResultList()) {
+            Object[] args = new Object[components.length];
+            for (int i = 0; i < components.length; i++) {
+                String field = components[i].getName();
+                args[i] = selection.contains(field) ? row.get(field) : null;
+            }
+            views.add(newView(constructor, args));
+        }
+        return views;
+    }
+
+    private static <V extends Record> Constructor<V> canonicalConstructor(Class<V> view, RecordComponent[] components) {
+        Class<?>[] types = new Class<?>[components.length];
+        for (int i = 0; i < components.length; i++) {
+            types[i] = components[i].getType();
+        }
+        try {
+            return view.getDeclaredConstructor(types);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("No canonical constructor on " + view.getName(), e);
+        }
+    }
+
+    private static <V> V newView(Constructor<V> constructor, Object[] args) {
+        try {
+            return constructor.newInstance(args);
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Could not create " + constructor.getDeclaringClass().getName(), e);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.rollingstone.repository;
+
+import com.rollingstone.model.TenantIssuer;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TenantIssuerRepository extends JpaRepository<TenantIssuer, String> {
+
+    // Rows written after the given change version, oldest first; tombstones (issuerUrl null) included
+    List<TenantIssuer> findByChangeVersionGreaterThanOrderByChangeVersionAsc(long afterVersion);
+
+    List<TenantIssuer> findByIssuerUrlIn(Collection<String> issuerUrls);
+
+    boolean existsByTenantIdAndIssuerUrlIsNotNull(String tenantId);
+}
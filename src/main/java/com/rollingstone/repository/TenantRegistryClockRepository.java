@@ -0,0 +1,17 @@
+package com.rollingstone.repository;
+
+import com.rollingstone.model.TenantRegistryClock;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface TenantRegistryClockRepository extends JpaRepository<TenantRegistryClock, Integer> {
+
+    // SELECT ... FOR UPDATE: held until the writing transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<TenantRegistryClock> findLockedById(Integer id);
+}
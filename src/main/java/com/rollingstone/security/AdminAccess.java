@@ -0,0 +1,41 @@
+package com.rollingstone.security;
+
+import com.rollingstone.config.AdminProperties;
+import com.rollingstone.config.AuthoritiesProperties;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+// /admin/** changes which issuers every tenant trusts. Any tenant's identity provider can put the admin role in
+// its own tokens, so the role only counts on a token from the operators' issuer.
+@Component
+public class AdminAccess implements AuthorizationManager<RequestAuthorizationContext> {
+
+    private final String adminAuthority;
+    private final String operatorIssuer;
+
+    public AdminAccess(AuthoritiesProperties authoritiesProperties, AdminProperties adminProperties) {
+        this.adminAuthority = authoritiesProperties.getPrefix() + authoritiesProperties.getAdminRole();
+        this.operatorIssuer = adminProperties.getIssuer();
+    }
+
+    @Override
+    public AuthorizationDecision check(Supplier<Authentication> authentication, RequestAuthorizationContext context) {
+        return new AuthorizationDecision(isAdmin(authentication.get()));
+    }
+
+    private boolean isAdmin(Authentication authentication) {
+        if (operatorIssuer == null || operatorIssuer.isBlank()
+                || !(authentication instanceof JwtAuthenticationToken jwt)
+                || !operatorIssuer.equals(jwt.getToken().getClaimAsString(JwtClaimNames.ISS))) {
+            return false;
+        }
+        return jwt.getAuthorities().stream().anyMatch(authority -> adminAuthority.equals(authority.getAuthority()));
+    }
+}
@@ -0,0 +1,106 @@
+package com.rollingstone.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rollingstone.config.AuthoritiesProperties;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Reads roles from nested claims (realm_access.roles, resource_access.<client>.roles, ...) using paths
+// compiled once per tenant, and hands out one shared immutable authority list per distinct role set.
+@Component
+public class ClaimPathAuthoritiesConverter implements Converter<Jwt, Collection<GrantedAuthority>> {
+
+    private final DynamicIssuerRegistry issuerRegistry;
+    private final String authorityPrefix;
+    private final List<ClaimPath> defaultPaths;
+    private final Map<String, List<ClaimPath>> tenantPaths;
+    private final Cache<Set<String>, List<GrantedAuthority>> authoritiesByRoles;
+
+    public ClaimPathAuthoritiesConverter(AuthoritiesProperties properties, DynamicIssuerRegistry issuerRegistry) {
+        this.issuerRegistry = issuerRegistry;
+        this.authorityPrefix = properties.getPrefix();
+        this.defaultPaths = compile(properties.getClaimPaths());
+        this.tenantPaths = properties.getTenants().entrySet().stream()
+                .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, tenant -> compile(tenant.getValue())));
+        this.authoritiesByRoles = Caffeine.newBuilder()
+                .maximumSize(properties.getCacheSize())
+                .build();
+    }
+
+    @Override
+    public Collection<GrantedAuthority> convert(Jwt jwt) {
+        Set<String> roles = new LinkedHashSet<>();
+        for (ClaimPath path : pathsFor(jwt.getClaimAsString(JwtClaimNames.ISS))) {
+            path.collect(jwt.getClaims(), roles);
+        }
+        if (roles.isEmpty()) {
+            return List.of();
+        }
+        return authoritiesByRoles.get(roles, this::toAuthorities);
+    }
+
+    private List<ClaimPath> pathsFor(String issuer) {
+        if (tenantPaths.isEmpty()) {
+            return defaultPaths;
+        }
+        String tenantId = issuerRegistry.findTenant(issuer);
+        return tenantId == null ? defaultPaths : tenantPaths.getOrDefault(tenantId, defaultPaths);
+    }
+
+    private List<GrantedAuthority> toAuthorities(Set<String> roles) {
+        return roles.stream()
+                .<GrantedAuthority>map(role -> new SimpleGrantedAuthority(authorityPrefix + role))
+                .toList();
+    }
+
+    private static List<ClaimPath> compile(List<String> paths) {
+        return paths.stream().map(ClaimPath::new).toList();
+    }
+
+    private static final class ClaimPath {
+
+        private final String[] segments;
+
+        private ClaimPath(String path) {
+            Assert.hasText(path, "Claim path must not be empty");
+            this.segments = path.split("\\.");
+        }
+
+        // Adds the strings found at this path; a space-delimited string (e.g. scope) counts as several
+        private void collect(Map<String, Object> claims, Set<String> roles) {
+            Object value = claims;
+            for (String segment : segments) {
+                if (!(value instanceof Map<?, ?> claim)) {
+                    return;
+                }
+                value = claim.get(segment);
+            }
+            if (value instanceof Collection<?> values) {
+                for (Object role : values) {
+                    if (role != null) {
+                        roles.add(role.toString());
+                    }
+                }
+            } else if (value instanceof String delimited) {
+                for (String role : delimited.split(" ")) {
+                    if (!role.isEmpty()) {
+                        roles.add(role);
+                    }
+                }
+            }
+        }
+    }
+}
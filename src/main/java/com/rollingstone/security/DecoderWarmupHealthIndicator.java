@@ -0,0 +1,83 @@
+package com.rollingstone.security;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.ReentrantLock;
+
+// OUT_OF_SERVICE until the startup decoder warmup has settled; part of the readiness group
+@Component("decoderWarmup")
+public class DecoderWarmupHealthIndicator implements HealthIndicator {
+
+    private volatile Map<String, ? extends CompletableFuture<?>> warmups;
+    // Once everything has settled the result is kept and the futures released, so they do not pin
+    // decoders the bounded decoder cache has since evicted
+    private volatile Health settled;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public void track(Map<String, ? extends CompletableFuture<?>> warmups) {
+        lock.lock();
+        try {
+            this.settled = null;
+            this.warmups = Map.copyOf(warmups);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Health health() {
+        Health result = settled;
+        if (result != null) {
+            return result;
+        }
+        Map<String, ? extends CompletableFuture<?>> current = warmups;
+        if (current == null) {
+            return Health.outOfService().withDetail("issuers", "warmup not started").build();
+        }
+        Map<String, String> failed = new TreeMap<>();
+        int pending = 0;
+        for (Map.Entry<String, ? extends CompletableFuture<?>> warmup : current.entrySet()) {
+            CompletableFuture<?> decoder = warmup.getValue();
+            if (!decoder.isDone()) {
+                pending++;
+            } else if (decoder.isCompletedExceptionally()) {
+                failed.put(warmup.getKey(), failureMessage(decoder));
+            }
+        }
+        // An unreachable IdP fails only its own tenant; it does not keep the node out of rotation
+        Health.Builder health = pending > 0 ? Health.outOfService() : Health.up();
+        result = health.withDetail("issuers", current.size())
+                .withDetail("pending", pending)
+                .withDetail("failed", failed)
+                .build();
+        if (pending == 0) {
+            lock.lock();
+            try {
+                if (warmups == current) {
+                    settled = result;
+                    warmups = null;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return result;
+    }
+
+    private static String failureMessage(CompletableFuture<?> decoder) {
+        try {
+            decoder.join();
+            return null;
+        } catch (CompletionException | CancellationException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            return String.valueOf(cause.getMessage());
+        }
+    }
+}
@@ -11,17 +11,27 @@ public class DynamicIssuerBootstrapper {
 
     private final IssuerProperties issuerProperties;
     private final DynamicIssuerRegistry dynamicIssuerRegistry;
+    private final PersistentIssuerRegistry persistentIssuerRegistry;
+    private final MultiTenantDynamicJwtDecoderFactory decoderFactory;
+    private final DecoderWarmupHealthIndicator warmupHealth;
 
     public DynamicIssuerBootstrapper(IssuerProperties issuerProperties,
-                                     DynamicIssuerRegistry dynamicIssuerRegistry) {
+                                     DynamicIssuerRegistry dynamicIssuerRegistry,
+                                     PersistentIssuerRegistry persistentIssuerRegistry,
+                                     MultiTenantDynamicJwtDecoderFactory decoderFactory,
+                                     DecoderWarmupHealthIndicator warmupHealth) {
         this.issuerProperties = issuerProperties;
         this.dynamicIssuerRegistry = dynamicIssuerRegistry;
+        this.persistentIssuerRegistry = persistentIssuerRegistry;
+        this.decoderFactory = decoderFactory;
+        this.warmupHealth = warmupHealth;
     }
 
     @PostConstruct
     public void init() {
-        if (issuerProperties.getIssuers() != null && !issuerProperties.getIssuers().isEmpty()) {
-            dynamicIssuerRegistry.initializeWithStaticIssuers(issuerProperties.getIssuers());
-        }
+        // Configured issuers, then every tenant in tenant_issuer in one read; later changes arrive as deltas
+        persistentIssuerRegistry.load(issuerProperties.getIssuers());
+        // Discovery for every known issuer runs in parallel; readiness waits for it to settle
+        warmupHealth.track(decoderFactory.prewarmAll(dynamicIssuerRegistry.getAllIssuers().values()));
     }
 }
@@ -2,31 +2,194 @@ package com.rollingstone.security;
 
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
 
 @Component
 public class DynamicIssuerRegistry {
 
-    private final Map<String, String> tenantToIssuer = new ConcurrentHashMap<>();
+    // Letters, digits, '.', '_' and '-', starting with a letter or digit. This keeps out
+    // TenantIdentifierResolver.ROOT, the id Hibernate lets read and write every tenant's rows.
+    private static final Pattern TENANT_ID = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._-]*");
+
+    // Immutable tenant->issuer map plus its issuer->tenant index; writers swap in a new one, readers never lock
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), Map.of());
+    private final List<IssuerChangeListener> listeners = new CopyOnWriteArrayList<>();
+    // Serializes writers; a lock rather than a monitor so a virtual thread waiting on it releases its carrier
+    private final ReentrantLock writeLock = new ReentrantLock();
 
     // 🟢 Load static issuers on startup
     public void initializeWithStaticIssuers(Map<String, String> staticIssuers) {
-        tenantToIssuer.putAll(staticIssuers);
+        registerAll(staticIssuers);
     }
 
     public void register(String tenantId, String issuerUrl) {
-        tenantToIssuer.put(tenantId, issuerUrl);
+        registerAll(Map.of(tenantId, issuerUrl));
+    }
+
+    public void registerAll(Map<String, String> issuersByTenant) {
+        List<IssuerChange> changes;
+        writeLock.lock();
+        try {
+            changes = swap(issuersByTenant);
+        } finally {
+            writeLock.unlock();
+        }
+        changes.forEach(this::notifyListeners);
+    }
+
+    // Moves an existing tenant to a new issuer; listeners drop everything built for the old one
+    public void update(String tenantId, String issuerUrl) {
+        List<IssuerChange> changes;
+        writeLock.lock();
+        try {
+            if (!snapshot.tenantToIssuer().containsKey(tenantId)) {
+                throw new NoSuchElementException("Tenant not registered: " + tenantId);
+            }
+            changes = swap(Map.of(tenantId, issuerUrl));
+        } finally {
+            writeLock.unlock();
+        }
+        changes.forEach(this::notifyListeners);
+    }
+
+    // Removes the tenant; listeners are told with issuer == null
+    public String deregister(String tenantId) {
+        IssuerChange change;
+        writeLock.lock();
+        try {
+            Map<String, String> tenantToIssuer = new HashMap<>(snapshot.tenantToIssuer());
+            String previousIssuer = tenantToIssuer.remove(tenantId);
+            if (previousIssuer == null) {
+                throw new NoSuchElementException("Tenant not registered: " + tenantId);
+            }
+            Map<String, String> issuerToTenant = new HashMap<>(snapshot.issuerToTenant());
+            issuerToTenant.remove(previousIssuer);
+            snapshot = new Snapshot(Map.copyOf(tenantToIssuer), Map.copyOf(issuerToTenant));
+            change = new IssuerChange(tenantId, previousIssuer, null);
+        } finally {
+            writeLock.unlock();
+        }
+        notifyListeners(change);
+        return change.previousIssuer();
+    }
+
+    // Brings each tenant to its issuer (null: removed) in one swap. The states come from the tenant table, which
+    // wins over this copy: a tenant outside the map still holding one of the issuers here has gone stale, and is
+    // dropped rather than failing the sync.
+    public void applyChanges(Map<String, String> issuersByTenant) {
+        issuersByTenant.keySet().forEach(DynamicIssuerRegistry::requireValidTenantId);
+        List<IssuerChange> changes = new ArrayList<>();
+        writeLock.lock();
+        try {
+            Map<String, String> tenantToIssuer = new HashMap<>(snapshot.tenantToIssuer());
+            Map<String, String> issuerToTenant = new HashMap<>(snapshot.issuerToTenant());
+            // Release every changed tenant's issuer first, so issuers moving between tenants don't collide
+            Map<String, String> previousIssuers = new HashMap<>();
+            issuersByTenant.keySet().forEach(tenantId -> {
+                String previousIssuer = tenantToIssuer.remove(tenantId);
+                if (previousIssuer != null) {
+                    issuerToTenant.remove(previousIssuer);
+                    previousIssuers.put(tenantId, previousIssuer);
+                }
+            });
+            issuersByTenant.forEach((tenantId, issuerUrl) -> {
+                if (issuerUrl != null) {
+                    String staleOwner = issuerToTenant.put(issuerUrl, tenantId);
+                    if (staleOwner != null) {
+                        tenantToIssuer.remove(staleOwner);
+                        changes.add(new IssuerChange(staleOwner, issuerUrl, null));
+                    }
+                    tenantToIssuer.put(tenantId, issuerUrl);
+                }
+                String previousIssuer = previousIssuers.get(tenantId);
+                if (!Objects.equals(previousIssuer, issuerUrl)) {
+                    changes.add(new IssuerChange(tenantId, previousIssuer, issuerUrl));
+                }
+            });
+            snapshot = new Snapshot(Map.copyOf(tenantToIssuer), Map.copyOf(issuerToTenant));
+        } finally {
+            writeLock.unlock();
+        }
+        changes.forEach(this::notifyListeners);
+    }
+
+    public static void requireValidTenantId(String tenantId) {
+        if (tenantId == null || !TENANT_ID.matcher(tenantId).matches()) {
+            throw new IllegalArgumentException("Invalid tenant id: " + tenantId);
+        }
+    }
+
+    public void addListener(IssuerChangeListener listener) {
+        listeners.add(listener);
     }
 
     public String resolveIssuer(String issuerClaim) {
-        return tenantToIssuer.values().stream()
-                .filter(issuerClaim::equals)
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("Issuer not registered: " + issuerClaim));
+        if (!isRegistered(issuerClaim)) {
+            throw new IllegalArgumentException("Issuer not registered: " + issuerClaim);
+        }
+        return issuerClaim;
+    }
+
+    public String resolveTenant(String issuerClaim) {
+        String tenantId = findTenant(issuerClaim);
+        if (tenantId == null) {
+            throw new IllegalArgumentException("Issuer not registered: " + issuerClaim);
+        }
+        return tenantId;
+    }
+
+    // null when the issuer is not registered
+    public String findTenant(String issuerClaim) {
+        return issuerClaim == null ? null : snapshot.issuerToTenant().get(issuerClaim);
+    }
+
+    public boolean isRegistered(String issuerClaim) {
+        return issuerClaim != null && snapshot.issuerToTenant().containsKey(issuerClaim);
     }
 
     public Map<String, String> getAllIssuers() {
-        return Map.copyOf(tenantToIssuer);
+        return snapshot.tenantToIssuer();
+    }
+
+    // Caller holds writeLock
+    private List<IssuerChange> swap(Map<String, String> issuersByTenant) {
+        issuersByTenant.keySet().forEach(DynamicIssuerRegistry::requireValidTenantId);
+        List<IssuerChange> changes = new ArrayList<>();
+        Map<String, String> tenantToIssuer = new HashMap<>(snapshot.tenantToIssuer());
+        Map<String, String> issuerToTenant = new HashMap<>(snapshot.issuerToTenant());
+        issuersByTenant.forEach((tenantId, issuerUrl) -> {
+            String owner = issuerToTenant.get(issuerUrl);
+            if (owner != null && !owner.equals(tenantId)) {
+                throw new IllegalArgumentException("Issuer " + issuerUrl + " already registered to tenant " + owner);
+            }
+            String previousIssuer = tenantToIssuer.put(tenantId, issuerUrl);
+            if (!issuerUrl.equals(previousIssuer)) {
+                if (previousIssuer != null) {
+                    issuerToTenant.remove(previousIssuer);
+                }
+                issuerToTenant.put(issuerUrl, tenantId);
+                changes.add(new IssuerChange(tenantId, previousIssuer, issuerUrl));
+            }
+        });
+        snapshot = new Snapshot(Map.copyOf(tenantToIssuer), Map.copyOf(issuerToTenant));
+        return changes;
+    }
+
+    private void notifyListeners(IssuerChange change) {
+        listeners.forEach(listener -> listener.onIssuerChange(change.tenantId(), change.previousIssuer(), change.issuer()));
+    }
+
+    private record Snapshot(Map<String, String> tenantToIssuer, Map<String, String> issuerToTenant) {
+    }
+
+    private record IssuerChange(String tenantId, String previousIssuer, String issuer) {
     }
-}
\ No newline at end of file
+}
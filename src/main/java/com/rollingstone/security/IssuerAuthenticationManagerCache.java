@@ -0,0 +1,67 @@
+package com.rollingstone.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rollingstone.config.DecoderCacheProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationProvider;
+
+import java.util.function.Function;
+
+// One AuthenticationManager per issuer, built on first use and reused by every request for that issuer.
+// Bounded like the decoder caches, since each manager keeps its issuer's decoder reachable.
+public class IssuerAuthenticationManagerCache {
+
+    private final Cache<String, AuthenticationManager> managers;
+    private final Function<String, JwtDecoder> decoderLookup;
+    private final JwtAuthenticationConverter authenticationConverter;
+
+    public IssuerAuthenticationManagerCache(String name, Function<String, JwtDecoder> decoderLookup,
+                                            JwtAuthenticationConverter authenticationConverter,
+                                            DecoderCacheProperties cacheProperties, MeterRegistry meterRegistry) {
+        this.managers = Caffeine.newBuilder()
+                .maximumSize(cacheProperties.getMaximumSize())
+                .expireAfterAccess(cacheProperties.getExpireAfterAccess())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, managers, name);
+        this.decoderLookup = decoderLookup;
+        this.authenticationConverter = authenticationConverter;
+    }
+
+    // null when no manager has been built for issuer yet
+    public AuthenticationManager getIfPresent(String issuer) {
+        return managers.getIfPresent(issuer);
+    }
+
+    public AuthenticationManager get(String issuer) {
+        AuthenticationManager manager = managers.getIfPresent(issuer);
+        if (manager != null) {
+            return manager;
+        }
+        // Resolve the decoder outside the cache so a slow issuer discovery never holds a bin lock
+        JwtDecoder decoder = decoderLookup.apply(issuer);
+        return managers.get(issuer, iss -> newManager(decoder));
+    }
+
+    public void evict(String issuer) {
+        if (issuer != null) {
+            managers.invalidate(issuer);
+        }
+    }
+
+    public long size() {
+        return managers.estimatedSize();
+    }
+
+    private AuthenticationManager newManager(JwtDecoder decoder) {
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider(decoder);
+        provider.setJwtAuthenticationConverter(authenticationConverter);
+        return new ProviderManager(provider);
+    }
+}
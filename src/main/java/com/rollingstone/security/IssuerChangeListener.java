@@ -0,0 +1,8 @@
+package com.rollingstone.security;
+
+@FunctionalInterface
+public interface IssuerChangeListener {
+
+    // previousIssuer is null for a new tenant, issuer is null for a deregistered one
+    void onIssuerChange(String tenantId, String previousIssuer, String issuer);
+}
@@ -1,18 +1,39 @@
 package com.rollingstone.security;
 
+import com.nimbusds.jwt.JWT;
 import com.nimbusds.jwt.JWTParser;
 import com.nimbusds.jwt.SignedJWT;
 
 public class JwtHelper {
 
+    // Token parsed during issuer resolution, handed to TenantJwtDecoder on the same request thread
+    private static final ThreadLocal<JWT> PARSED_TOKEN = new ThreadLocal<>();
+
     public static String extractIssuer(String token) {
         try {
             SignedJWT jwt = (SignedJWT) JWTParser.parse(token);
-            return jwt.getJWTClaimsSet().getIssuer();
+            String issuer = jwt.getJWTClaimsSet().getIssuer();
+            PARSED_TOKEN.set(jwt);
+            return issuer;
         } catch (Exception e) {
             throw new RuntimeException("Unable to parse JWT", e);
         }
     }
-}
 
+    // For requests rejected before their token reached TenantJwtDecoder, so the token does not stay attached to a
+    // pooled thread until its next request
+    static void clearParsed() {
+        PARSED_TOKEN.remove();
+    }
+
+    // Returns the already parsed form of token if extractIssuer saw it last on this thread, otherwise null
+    static JWT takeParsed(String token) {
+        JWT parsed = PARSED_TOKEN.get();
+        if (parsed == null) {
+            return null;
+        }
+        PARSED_TOKEN.remove();
+        return token.equals(parsed.getParsedString()) ? parsed : null;
+    }
+}
 
@@ -1,31 +1,139 @@
 package com.rollingstone.security;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rollingstone.config.DecoderCacheProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
-import org.springframework.security.oauth2.jwt.JwtDecoders;
-import org.springframework.security.oauth2.jwt.JwtValidators;
-import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestOperations;
+import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 @Component
 public class MultiTenantDynamicJwtDecoderFactory {
 
-    private final Map<String, JwtDecoder> decoderCache = new ConcurrentHashMap<>();
-    private final DynamicIssuerRegistry issuerRegistry;
+    private static final Duration DISCOVERY_CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration DISCOVERY_READ_TIMEOUT = Duration.ofSeconds(10);
 
+    // One future per issuer: the first caller starts the discovery call, everyone else waits on the same result.
+    // Bounded, and issuers idle for expire-after-access are dropped.
+    private final AsyncCache<String, JwtDecoder> decoderCache;
+    private final DynamicIssuerRegistry issuerRegistry;
+    private final Executor warmupExecutor;
+    private final RestOperations discoveryClient;
+    private final TenantJwkSourceFactory jwkSources;
+    private final TenantMetrics metrics;
 
-    public MultiTenantDynamicJwtDecoderFactory(DynamicIssuerRegistry issuerRegistry) {
+    public MultiTenantDynamicJwtDecoderFactory(DynamicIssuerRegistry issuerRegistry,
+                                               @Qualifier("decoderWarmupExecutor") Executor warmupExecutor,
+                                               TenantJwkSourceFactory jwkSources,
+                                               DecoderCacheProperties cacheProperties,
+                                               MeterRegistry meterRegistry,
+                                               TenantMetrics metrics) {
+        this.decoderCache = Caffeine.newBuilder()
+                .maximumSize(cacheProperties.getMaximumSize())
+                .expireAfterAccess(cacheProperties.getExpireAfterAccess())
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, decoderCache, "issuerDecoders");
         this.issuerRegistry = issuerRegistry;
+        this.warmupExecutor = warmupExecutor;
+        this.discoveryClient = discoveryClient();
+        this.jwkSources = jwkSources;
+        this.metrics = metrics;
+        // Newly registered issuers are built in the background, replaced and deregistered ones are dropped
+        issuerRegistry.addListener((tenantId, previousIssuer, issuer) -> {
+            if (previousIssuer != null) {
+                decoderCache.asMap().remove(previousIssuer);
+            }
+            if (issuer != null) {
+                prewarm(issuer);
+            }
+        });
     }
 
     public JwtDecoder getDecoder(String issuerClaim) {
         String issuer = issuerRegistry.resolveIssuer(issuerClaim);
-        return decoderCache.computeIfAbsent(issuer, iss -> {
-            NimbusJwtDecoder decoder = JwtDecoders.fromIssuerLocation(iss);
-            decoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(iss));
+        // A cold issuer is built on the calling thread; concurrent callers share that one discovery call
+        return await(decoderFor(issuer, Runnable::run));
+    }
+
+    public CompletableFuture<JwtDecoder> prewarm(String issuer) {
+        return decoderFor(issuer, warmupExecutor);
+    }
+
+    public Map<String, CompletableFuture<JwtDecoder>> prewarmAll(Collection<String> issuers) {
+        Map<String, CompletableFuture<JwtDecoder>> warmups = new LinkedHashMap<>();
+        issuers.forEach(issuer -> warmups.put(issuer, prewarm(issuer)));
+        return warmups;
+    }
+
+    private CompletableFuture<JwtDecoder> decoderFor(String issuer, Executor executor) {
+        CompletableFuture<JwtDecoder> decoder = decoderCache.getIfPresent(issuer);
+        if (decoder != null) {
             return decoder;
-        });
+        }
+        CompletableFuture<JwtDecoder> created = new CompletableFuture<>();
+        decoder = decoderCache.asMap().putIfAbsent(issuer, created);
+        if (decoder != null) {
+            return decoder;
+        }
+        try {
+            executor.execute(() -> build(issuer, created));
+        } catch (RejectedExecutionException e) {
+            decoderCache.asMap().remove(issuer, created);
+            created.completeExceptionally(e);
+        }
+        return created;
+    }
+
+    private void build(String issuer, CompletableFuture<JwtDecoder> decoder) {
+        long start = System.nanoTime();
+        try {
+            JwtDecoder built = TenantJwtDecoder.fromIssuerLocation(issuer, discoveryClient, jwkSources);
+            metrics.recordDecoderBuild(issuer, true, start);
+            decoder.complete(built);
+        } catch (RuntimeException e) {
+            metrics.recordDecoderBuild(issuer, false, start);
+            // Forget the failure so the next request retries discovery
+            decoderCache.asMap().remove(issuer, decoder);
+            decoder.completeExceptionally(e);
+        }
+    }
+
+    public long size() {
+        return decoderCache.synchronous().estimatedSize();
+    }
+
+    private static JwtDecoder await(CompletableFuture<JwtDecoder> decoder) {
+        try {
+            return decoder.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Also used by MultiTenantJwtDecoderFactory: discovery runs while requests for the issuer wait on it, so a hung
+    // IdP must fail them after the timeouts rather than hold them indefinitely
+    static RestOperations discoveryClient() {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(DISCOVERY_CONNECT_TIMEOUT);
+        requestFactory.setReadTimeout(DISCOVERY_READ_TIMEOUT);
+        return new RestTemplate(requestFactory);
     }
 }
@@ -24,33 +24,86 @@
 
 package com.rollingstone.security;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rollingstone.config.DecoderCacheProperties;
 import com.rollingstone.config.IssuerProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.security.oauth2.jwt.*;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestOperations;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Component
 public class MultiTenantJwtDecoderFactory {
 
-    private final Map<String, JwtDecoder> decoderCache = new ConcurrentHashMap<>();
-    private final Map<String, String> issuerMap;
+    private final AsyncCache<String, JwtDecoder> decoderCache;
+    private final Set<String> issuers;
+    private final RestOperations discoveryClient = MultiTenantDynamicJwtDecoderFactory.discoveryClient();
+    private final TenantJwkSourceFactory jwkSources;
+    private final TenantMetrics metrics;
 
-    public MultiTenantJwtDecoderFactory(IssuerProperties issuerProperties) {
-        this.issuerMap = issuerProperties.getIssuers();
+    public MultiTenantJwtDecoderFactory(IssuerProperties issuerProperties, TenantJwkSourceFactory jwkSources,
+                                        DecoderCacheProperties cacheProperties, MeterRegistry meterRegistry,
+                                        TenantMetrics metrics) {
+        this.decoderCache = Caffeine.newBuilder()
+                .maximumSize(cacheProperties.getMaximumSize())
+                .expireAfterAccess(cacheProperties.getExpireAfterAccess())
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, decoderCache, "staticIssuerDecoders");
+        this.jwkSources = jwkSources;
+        this.metrics = metrics;
+        this.issuers = issuerProperties.getIssuers() == null
+                ? Set.of()
+                : Set.copyOf(issuerProperties.getIssuers().values());
     }
 
     public JwtDecoder getDecoder(String issuerClaim) {
-        String issuer = issuerMap.values().stream()
-                .filter(issuerClaim::equals)
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("Unknown issuer: " + issuerClaim));
-
-        return decoderCache.computeIfAbsent(issuer, iss -> {
-            NimbusJwtDecoder decoder = JwtDecoders.fromIssuerLocation(iss);
-            decoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(iss));
-            return decoder;
-        });
+        if (issuerClaim == null || !issuers.contains(issuerClaim)) {
+            throw new IllegalArgumentException("Unknown issuer: " + issuerClaim);
+        }
+        // Discovery runs on the calling thread but outside the cache's compute, so no map lock is held across
+        // the IdP round trip (a virtual thread blocked there would otherwise pin its carrier); concurrent
+        // callers for the same issuer wait on the one future instead
+        CompletableFuture<JwtDecoder> decoder = decoderCache.getIfPresent(issuerClaim);
+        if (decoder == null) {
+            CompletableFuture<JwtDecoder> created = new CompletableFuture<>();
+            decoder = decoderCache.asMap().putIfAbsent(issuerClaim, created);
+            if (decoder == null) {
+                build(issuerClaim, created);
+                decoder = created;
+            }
+        }
+        return await(decoder);
+    }
+
+    private void build(String issuer, CompletableFuture<JwtDecoder> decoder) {
+        long start = System.nanoTime();
+        try {
+            JwtDecoder built = TenantJwtDecoder.fromIssuerLocation(issuer, discoveryClient, jwkSources);
+            metrics.recordDecoderBuild(issuer, true, start);
+            decoder.complete(built);
+        } catch (RuntimeException e) {
+            metrics.recordDecoderBuild(issuer, false, start);
+            // Forget the failure so the next request retries discovery
+            decoderCache.asMap().remove(issuer, decoder);
+            decoder.completeExceptionally(e);
+        }
+    }
+
+    private static JwtDecoder await(CompletableFuture<JwtDecoder> decoder) {
+        try {
+            return decoder.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
     }
 }
@@ -0,0 +1,119 @@
+package com.rollingstone.security;
+
+import com.rollingstone.model.TenantIssuer;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Tenants registered through the admin API live in tenant_issuer; DynamicIssuerRegistry is this node's copy.
+// Writes go to the table first and are applied here at once. Writes made on other nodes arrive by polling for
+// rows past the last change version applied, so each poll reads only what changed since the one before.
+@Component
+public class PersistentIssuerRegistry {
+
+    private final TenantIssuerStore store;
+    private final DynamicIssuerRegistry registry;
+    // One sync or write at a time; guards appliedVersion
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private long appliedVersion;
+
+    public PersistentIssuerRegistry(TenantIssuerStore store, DynamicIssuerRegistry registry) {
+        this.store = store;
+        this.registry = registry;
+    }
+
+    // Startup: issuers from configuration first, then every row of the table on top of them, so tenants
+    // registered, moved or removed through the admin API override the configured ones
+    public void load(Map<String, String> configuredIssuers) {
+        try {
+            store.createClock();
+        } catch (DataIntegrityViolationException e) {
+            // another node created it meanwhile
+        }
+        if (configuredIssuers != null && !configuredIssuers.isEmpty()) {
+            registry.initializeWithStaticIssuers(configuredIssuers);
+        }
+        sync();
+    }
+
+    @Scheduled(fixedDelayString = "${security.tenant-registry.poll-interval:5s}")
+    public void sync() {
+        syncLock.lock();
+        try {
+            List<TenantIssuer> changes = store.changesSince(appliedVersion);
+            if (changes.isEmpty()) {
+                return;
+            }
+            // Rows hold each tenant's latest state, so one map covers any number of changes to a tenant
+            Map<String, String> issuersByTenant = new HashMap<>();
+            changes.forEach(row -> issuersByTenant.put(row.getTenantId(), row.getIssuerUrl()));
+            registry.applyChanges(issuersByTenant);
+            appliedVersion = changes.get(changes.size() - 1).getChangeVersion();
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    public void register(String tenantId, String issuerUrl) {
+        registerAll(Map.of(tenantId, issuerUrl));
+    }
+
+    // One transaction and one change version for the whole map: either every tenant is registered or none is
+    public void registerAll(Map<String, String> issuersByTenant) {
+        issuersByTenant.forEach((tenantId, issuerUrl) -> {
+            if (issuerUrl == null || issuerUrl.isBlank()) {
+                throw new IllegalArgumentException("Issuer URL required for tenant " + tenantId);
+            }
+        });
+        write(new LinkedHashMap<>(issuersByTenant));
+    }
+
+    public void update(String tenantId, String issuerUrl) {
+        requireRegistered(tenantId);
+        write(Map.of(tenantId, issuerUrl));
+    }
+
+    public void deregister(String tenantId) {
+        requireRegistered(tenantId);
+        Map<String, String> removal = new HashMap<>();
+        removal.put(tenantId, null);
+        write(removal);
+    }
+
+    // Known to this node (configured, or synced) or registered in the table by a node this one hasn't heard from yet
+    private void requireRegistered(String tenantId) {
+        if (!registry.getAllIssuers().containsKey(tenantId) && !store.isRegistered(tenantId)) {
+            throw new NoSuchElementException("Tenant not registered: " + tenantId);
+        }
+    }
+
+    // Under syncLock, so a sync that read the table before this write cannot apply its older rows after it
+    private void write(Map<String, String> issuersByTenant) {
+        // Checked before anything reaches the table, so no node ever has to apply an invalid id
+        issuersByTenant.keySet().forEach(DynamicIssuerRegistry::requireValidTenantId);
+        syncLock.lock();
+        try {
+            // Catch up first: the table only knows tenants written through it, so configured tenants are checked
+            // against this node's copy, which should not still hold issuers other nodes have moved
+            sync();
+            issuersByTenant.forEach((tenantId, issuerUrl) -> {
+                String owner = registry.findTenant(issuerUrl);
+                if (owner != null && !issuersByTenant.containsKey(owner)) {
+                    throw new IllegalArgumentException("Issuer " + issuerUrl + " already registered to tenant " + owner);
+                }
+            });
+            store.write(issuersByTenant);
+            // Not recorded as applied: versions below this one may not have been synced yet
+            registry.applyChanges(issuersByTenant);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+}
@@ -1,14 +1,16 @@
 package com.rollingstone.security;
 
+import com.rollingstone.config.DecoderCacheProperties;
 import com.rollingstone.config.IssuerProperties;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManagerResolver;
-import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
-import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.server.resource.authentication.*;
 import org.springframework.security.web.SecurityFilterChain;
 
@@ -21,10 +23,31 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationConverter authenticationConverter;
 
+    @Autowired
+    private DynamicIssuerRegistry issuerRegistry;
+
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Autowired
+    private DecoderCacheProperties decoderCacheProperties;
+
+    @Autowired
+    private AdminAccess adminAccess;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TenantMetrics tenantMetrics;
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
                 .authorizeHttpRequests(authz -> authz
+                        .requestMatchers(EndpointRequest.to(HealthEndpoint.class)).permitAll()
+                        // Tenant registration changes who can sign in as every tenant: operators only
+                        .requestMatchers("/admin/**").access(adminAccess)
                         .anyRequest().authenticated()
                 )
                 .oauth2ResourceServer(oauth2 -> oauth2
@@ -33,20 +56,22 @@ public class SecurityConfig {
         return http.build();
     }
 
+    @Bean
+    public IssuerAuthenticationManagerCache dynamicAuthenticationManagerCache() {
+        IssuerAuthenticationManagerCache managers = new IssuerAuthenticationManagerCache(
+                "issuerAuthenticationManagers",
+                issuer -> verifiedTokenCache.decorate(
+                        tenantMetrics.instrument(issuer, dynamicDecoderFactory.getDecoder(issuer))),
+                authenticationConverter, decoderCacheProperties, meterRegistry);
+        // A tenant moving to a new issuer, or leaving, drops the manager built for the old one
+        issuerRegistry.addListener((tenantId, previousIssuer, issuer) -> managers.evict(previousIssuer));
+        return managers;
+    }
+
     public AuthenticationManagerResolver<HttpServletRequest> multiTenantAuthenticationManagerResolver() {
-        return request -> {
-            String authHeader = request.getHeader("Authorization");
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-                throw new RuntimeException("Missing or invalid Authorization header");
-            }
-
-            String token = authHeader.substring(7);
-            String issuer = JwtHelper.extractIssuer(token);
-
-            JwtDecoder decoder = dynamicDecoderFactory.getDecoder(issuer);
-            JwtAuthenticationProvider provider = new JwtAuthenticationProvider(decoder);
-            provider.setJwtAuthenticationConverter(authenticationConverter);
-            return new ProviderManager(provider);
-        };
+        // The registry is checked on every request, so a deregistered or moved issuer stops
+        // authenticating the moment the registry swaps, even before its caches are evicted
+        return new TenantAuthenticationManagerResolver(issuerRegistry::resolveIssuer,
+                dynamicAuthenticationManagerCache(), tenantMetrics);
     }
 }
@@ -1,15 +1,14 @@
 package com.rollingstone.security;
 
+import com.rollingstone.config.DecoderCacheProperties;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManagerResolver;
-import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
-import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
-import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationProvider;
 import org.springframework.security.web.SecurityFilterChain;
 
 //@Configuration
@@ -21,10 +20,24 @@ public class SecurityConfigStatic {
     @Autowired
     JwtAuthenticationConverter authenticationConverter;
 
+    @Autowired
+    DecoderCacheProperties decoderCacheProperties;
+
+    @Autowired
+    AdminAccess adminAccess;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    TenantMetrics tenantMetrics;
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
                 .authorizeHttpRequests(authz -> authz
+                        // Tenant registration changes who can sign in as every tenant: operators only
+                        .requestMatchers("/admin/**").access(adminAccess)
                         .anyRequest().authenticated()
                 )
                 .oauth2ResourceServer(oauth2 -> oauth2
@@ -34,21 +47,16 @@ public class SecurityConfigStatic {
         return http.build();
     }
 
+    @Bean
+    public IssuerAuthenticationManagerCache staticAuthenticationManagerCache() {
+        return new IssuerAuthenticationManagerCache("staticIssuerAuthenticationManagers",
+                issuer -> tenantMetrics.instrument(issuer, decoderFactory.getDecoder(issuer)),
+                authenticationConverter, decoderCacheProperties, meterRegistry);
+    }
+
     public AuthenticationManagerResolver<HttpServletRequest> multiTenantAuthenticationManagerResolver() {
-        return request -> {
-            String authHeader = request.getHeader("Authorization");
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-                throw new RuntimeException("Missing or invalid Authorization header");
-            }
-
-            String token = authHeader.substring(7);
-            String issuer = JwtHelper.extractIssuer(token); // utility you create (see below)
-
-            JwtDecoder decoder = decoderFactory.getDecoder(issuer);
-            JwtAuthenticationProvider provider = new JwtAuthenticationProvider(decoder);
-            provider.setJwtAuthenticationConverter(authenticationConverter);
-            return new ProviderManager(provider);
-        };
+        // Unknown issuers are rejected by decoderFactory when their manager is first built
+        return new TenantAuthenticationManagerResolver(issuer -> issuer, staticAuthenticationManagerCache(),
+                tenantMetrics);
     }
 }
-
@@ -0,0 +1,75 @@
+package com.rollingstone.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.AuthenticationManagerResolver;
+
+import java.util.function.UnaryOperator;
+
+// Picks the AuthenticationManager for a request from the iss claim of its bearer token
+public class TenantAuthenticationManagerResolver implements AuthenticationManagerResolver<HttpServletRequest> {
+
+    private final UnaryOperator<String> issuerCheck;
+    private final IssuerAuthenticationManagerCache managers;
+    private final TenantMetrics metrics;
+
+    // issuerCheck returns the issuer to use, or throws if the token's issuer must not be trusted
+    public TenantAuthenticationManagerResolver(UnaryOperator<String> issuerCheck,
+                                               IssuerAuthenticationManagerCache managers, TenantMetrics metrics) {
+        this.issuerCheck = issuerCheck;
+        this.managers = managers;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public AuthenticationManager resolve(HttpServletRequest request) {
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            metrics.recordFailure(null, TenantMetrics.MISSING_TOKEN);
+            throw new RuntimeException("Missing or invalid Authorization header");
+        }
+
+        String token = authHeader.substring(7);
+        String issuer = checkIssuer(extractIssuer(token));
+        request.setAttribute(TenantMetrics.TENANT_ATTRIBUTE, metrics.tenantTag(issuer));
+
+        long start = System.nanoTime();
+        AuthenticationManager manager = managers.getIfPresent(issuer);
+        if (manager != null) {
+            metrics.recordManagerResolution(issuer, true, start);
+            return manager;
+        }
+        try {
+            manager = managers.get(issuer);
+        } catch (RuntimeException e) {
+            JwtHelper.clearParsed();
+            metrics.recordFailure(issuer, TenantMetrics.DECODER_UNAVAILABLE);
+            throw e;
+        }
+        metrics.recordManagerResolution(issuer, false, start);
+        return manager;
+    }
+
+    private String extractIssuer(String token) {
+        long start = System.nanoTime();
+        String issuer;
+        try {
+            issuer = JwtHelper.extractIssuer(token);
+        } catch (RuntimeException e) {
+            metrics.recordFailure(null, TenantMetrics.MALFORMED_TOKEN);
+            throw e;
+        }
+        metrics.recordIssuerExtraction(issuer, start);
+        return issuer;
+    }
+
+    private String checkIssuer(String issuer) {
+        try {
+            return issuerCheck.apply(issuer);
+        } catch (RuntimeException e) {
+            JwtHelper.clearParsed();
+            metrics.recordFailure(issuer, TenantMetrics.UNKNOWN_ISSUER);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.rollingstone.security;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// Tells Hibernate which tenant a session belongs to: the registry's tenant for the issuer of the request's JWT.
+// Entities with a @TenantId are then written with that tenant and every query (finds included) is restricted
+// to it. Work that runs without a JWT (startup, background jobs) gets the root tenant, which sees all rows.
+@Component
+public class TenantIdentifierResolver implements CurrentTenantIdentifierResolver<String>, HibernatePropertiesCustomizer {
+
+    // Never a tenant: DynamicIssuerRegistry only accepts ids that start with a letter or digit
+    public static final String ROOT = "*";
+
+    private final DynamicIssuerRegistry issuerRegistry;
+
+    public TenantIdentifierResolver(DynamicIssuerRegistry issuerRegistry) {
+        this.issuerRegistry = issuerRegistry;
+    }
+
+    @Override
+    public String resolveCurrentTenantIdentifier() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (!(authentication instanceof JwtAuthenticationToken jwt)) {
+            return ROOT;
+        }
+        String issuer = jwt.getToken().getClaimAsString(JwtClaimNames.ISS);
+        String tenantId = issuerRegistry.findTenant(issuer);
+        if (tenantId == null || ROOT.equals(tenantId)) {
+            // Authenticated, but the issuer has left the registry since: fail closed rather than see everything
+            throw new IllegalStateException("Issuer not registered: " + issuer);
+        }
+        return tenantId;
+    }
+
+    @Override
+    public boolean isRoot(String tenantId) {
+        return ROOT.equals(tenantId);
+    }
+
+    // Sessions are opened per transaction, so there is no long-lived session whose tenant could go stale
+    @Override
+    public boolean validateExistingCurrentSessions() {
+        return false;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.MULTI_TENANT_IDENTIFIER_RESOLVER, this);
+    }
+}
@@ -0,0 +1,114 @@
+package com.rollingstone.security;
+
+import com.rollingstone.model.TenantIssuer;
+import com.rollingstone.model.TenantRegistryClock;
+import com.rollingstone.repository.TenantIssuerRepository;
+import com.rollingstone.repository.TenantRegistryClockRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// tenant_issuer and its change clock. Every write takes the next change version under the clock's row lock,
+// which also serializes the issuer-ownership checks across nodes.
+@Component
+public class TenantIssuerStore {
+
+    // Ids per IN list
+    private static final int CHUNK_SIZE = 1000;
+
+    private final TenantIssuerRepository tenantIssuerRepository;
+    private final TenantRegistryClockRepository clockRepository;
+    private final EntityManager entityManager;
+
+    public TenantIssuerStore(TenantIssuerRepository tenantIssuerRepository,
+                             TenantRegistryClockRepository clockRepository,
+                             EntityManager entityManager) {
+        this.tenantIssuerRepository = tenantIssuerRepository;
+        this.clockRepository = clockRepository;
+        this.entityManager = entityManager;
+    }
+
+    // Fails with a DataIntegrityViolationException when another node created the clock meanwhile
+    @Transactional
+    public void createClock() {
+        if (!clockRepository.existsById(TenantRegistryClock.ID)) {
+            clockRepository.saveAndFlush(new TenantRegistryClock(TenantRegistryClock.ID));
+        }
+    }
+
+    // Sets each tenant's issuer (null deregisters it) in one transaction under one change version, returned
+    @Transactional
+    public long write(Map<String, String> issuersByTenant) {
+        TenantRegistryClock clock = clockRepository.findLockedById(TenantRegistryClock.ID)
+                .orElseThrow(() -> new IllegalStateException("Tenant registry clock missing"));
+        checkOwnership(issuersByTenant);
+        long version = clock.getChangeVersion() + 1;
+        clock.setChangeVersion(version);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<String> tenantIds = new ArrayList<>(issuersByTenant.keySet());
+        Map<String, TenantIssuer> rows = new HashMap<>();
+        for (int from = 0; from < tenantIds.size(); from += CHUNK_SIZE) {
+            tenantIssuerRepository.findAllById(tenantIds.subList(from, Math.min(from + CHUNK_SIZE, tenantIds.size())))
+                    .forEach(row -> rows.put(row.getTenantId(), row));
+        }
+        // Existing rows are updated and flushed before new ones are inserted: Hibernate would otherwise insert
+        // first, and a new tenant taking over an issuer another tenant just gave up would hit the unique key
+        rows.values().forEach(row -> stamp(row, issuersByTenant.get(row.getTenantId()), version, now));
+        tenantIssuerRepository.flush();
+        // persist, not save: with an assigned id, save would merge and SELECT each new row first
+        issuersByTenant.forEach((tenantId, issuerUrl) -> {
+            if (!rows.containsKey(tenantId)) {
+                entityManager.persist(stamp(new TenantIssuer(tenantId), issuerUrl, version, now));
+            }
+        });
+        return version;
+    }
+
+    @Transactional(readOnly = true)
+    public List<TenantIssuer> changesSince(long version) {
+        return tenantIssuerRepository.findByChangeVersionGreaterThanOrderByChangeVersionAsc(version);
+    }
+
+    @Transactional(readOnly = true)
+    public boolean isRegistered(String tenantId) {
+        return tenantIssuerRepository.existsByTenantIdAndIssuerUrlIsNotNull(tenantId);
+    }
+
+    // An issuer may only be taken by a tenant in this write if no tenant outside it holds the issuer
+    private void checkOwnership(Map<String, String> issuersByTenant) {
+        Map<String, String> claimedBy = new HashMap<>();
+        issuersByTenant.forEach((tenantId, issuerUrl) -> {
+            if (issuerUrl != null) {
+                String other = claimedBy.put(issuerUrl, tenantId);
+                if (other != null) {
+                    throw new IllegalArgumentException("Issuer " + issuerUrl + " given to both " + other + " and " + tenantId);
+                }
+            }
+        });
+        List<String> issuerUrls = new ArrayList<>(claimedBy.keySet());
+        for (int from = 0; from < issuerUrls.size(); from += CHUNK_SIZE) {
+            for (TenantIssuer owner : tenantIssuerRepository.findByIssuerUrlIn(
+                    issuerUrls.subList(from, Math.min(from + CHUNK_SIZE, issuerUrls.size())))) {
+                // An owner that is part of this write is either keeping the issuer or giving it up
+                if (!issuersByTenant.containsKey(owner.getTenantId())) {
+                    throw new IllegalArgumentException("Issuer " + owner.getIssuerUrl()
+                            + " already registered to tenant " + owner.getTenantId());
+                }
+            }
+        }
+    }
+
+    private static TenantIssuer stamp(TenantIssuer row, String issuerUrl, long version, LocalDateTime now) {
+        row.setIssuerUrl(issuerUrl);
+        row.setChangeVersion(version);
+        row.setUpdatedAt(now);
+        return row;
+    }
+}
@@ -0,0 +1,108 @@
+package com.rollingstone.security;
+
+import com.nimbusds.jose.jwk.source.JWKSetBasedJWKSource;
+import com.nimbusds.jose.jwk.source.JWKSetSource;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.jwk.source.OutageTolerantJWKSetSource;
+import com.nimbusds.jose.jwk.source.RateLimitedJWKSetSource;
+import com.nimbusds.jose.jwk.source.RefreshAheadCachingJWKSetSource;
+import com.nimbusds.jose.jwk.source.RetryingJWKSetSource;
+import com.nimbusds.jose.jwk.source.URLBasedJWKSetSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jose.util.DefaultResourceRetriever;
+import com.nimbusds.jose.util.Resource;
+import com.nimbusds.jose.util.ResourceRetriever;
+import com.nimbusds.jose.util.events.Event;
+import com.rollingstone.config.JwksProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Builds the per-issuer JWK source: cached key set refreshed in the background shortly before it expires,
+// at most two fetches per min-refetch-interval (unknown-kid refetches wait on one shared refresh),
+// and last-known-good keys served while the JWKS endpoint is failing.
+@Component
+public class TenantJwkSourceFactory {
+
+    private final JwksProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService refreshExecutor;
+    private final ResourceRetriever resourceRetriever;
+
+    public TenantJwkSourceFactory(JwksProperties properties, MeterRegistry meterRegistry,
+                                  @Qualifier("jwksRefreshExecutor") ExecutorService refreshExecutor) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.refreshExecutor = refreshExecutor;
+        this.resourceRetriever = new TimedResourceRetriever(new DefaultResourceRetriever(
+                (int) properties.getConnectTimeout().toMillis(), (int) properties.getReadTimeout().toMillis()),
+                meterRegistry);
+    }
+
+    public JWKSource<SecurityContext> create(String jwkSetUri) {
+        // Same layering as JWKSourceBuilder, except refresh-ahead runs on the shared executor
+        // rather than on threads of its own per issuer
+        JWKSetSource<SecurityContext> source = new URLBasedJWKSetSource<>(toUrl(jwkSetUri), resourceRetriever);
+        source = new RetryingJWKSetSource<>(source, this::countEvent);
+        source = new OutageTolerantJWKSetSource<>(source, properties.getOutageTolerance().toMillis(), this::countEvent);
+        source = new RateLimitedJWKSetSource<>(source, properties.getMinRefetchInterval().toMillis(), this::countEvent);
+        source = new RefreshAheadCachingJWKSetSource<>(source,
+                properties.getCacheTtl().toMillis(),
+                properties.getRefreshTimeout().toMillis(),
+                properties.getRefreshAhead().toMillis(),
+                false, refreshExecutor, false, this::countEvent);
+        return new JWKSetBasedJWKSource<>(source);
+    }
+
+    private void countEvent(Event<?, SecurityContext> event) {
+        String name = event.getClass().getSimpleName();
+        Counter.builder("security.jwks.events")
+                .tag("event", name.endsWith("Event") ? name.substring(0, name.length() - "Event".length()) : name)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static URL toUrl(String jwkSetUri) {
+        try {
+            return URI.create(jwkSetUri).toURL();
+        } catch (IllegalArgumentException | MalformedURLException e) {
+            throw new IllegalArgumentException("Invalid jwks_uri: " + jwkSetUri, e);
+        }
+    }
+
+    // Times every JWKS HTTP fetch, tagged by outcome
+    private static final class TimedResourceRetriever implements ResourceRetriever {
+
+        private final ResourceRetriever delegate;
+        private final Timer success;
+        private final Timer failure;
+
+        private TimedResourceRetriever(ResourceRetriever delegate, MeterRegistry meterRegistry) {
+            this.delegate = delegate;
+            this.success = Timer.builder("security.jwks.fetch").tag("outcome", "success").register(meterRegistry);
+            this.failure = Timer.builder("security.jwks.fetch").tag("outcome", "failure").register(meterRegistry);
+        }
+
+        @Override
+        public Resource retrieveResource(URL url) throws IOException {
+            long start = System.nanoTime();
+            try {
+                Resource resource = delegate.retrieveResource(url);
+                success.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return resource;
+            } catch (IOException | RuntimeException e) {
+                failure.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.rollingstone.security;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.RemoteKeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.KeyType;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.jwk.source.RateLimitReachedException;
+import com.nimbusds.jose.proc.JWSKeySelector;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWT;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.JWTParser;
+import com.nimbusds.jwt.PlainJWT;
+import com.nimbusds.jwt.proc.JWTProcessor;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.http.RequestEntity;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.*;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestOperations;
+
+import java.text.ParseException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Verifies the token already parsed by JwtHelper.extractIssuer instead of parsing it a second time.
+// Processor, claim conversion, validators and error mapping mirror NimbusJwtDecoder, so every token
+// gets the same outcome it would get there.
+public final class TenantJwtDecoder implements JwtDecoder {
+
+    private static final String DECODING_ERROR_MESSAGE_TEMPLATE = "An error occurred while attempting to decode the Jwt: %s";
+    private static final String OIDC_METADATA_PATH = "/.well-known/openid-configuration";
+    private static final ParameterizedTypeReference<Map<String, Object>> STRING_OBJECT_MAP =
+            new ParameterizedTypeReference<>() {
+            };
+
+    private final JWTProcessor<SecurityContext> jwtProcessor;
+    private final OAuth2TokenValidator<Jwt> jwtValidator;
+    private final Converter<Map<String, Object>, Map<String, Object>> claimSetConverter =
+            MappedJwtClaimSetConverter.withDefaults(Collections.emptyMap());
+
+    public TenantJwtDecoder(JWTProcessor<SecurityContext> jwtProcessor, OAuth2TokenValidator<Jwt> jwtValidator) {
+        this.jwtProcessor = jwtProcessor;
+        this.jwtValidator = jwtValidator;
+    }
+
+    // Same OIDC discovery and processor setup as JwtDecoders.fromIssuerLocation, keeping hold of the processor
+    // and swapping Spring's JWK source for the refresh-ahead, rate-limited one from jwkSources
+    public static TenantJwtDecoder fromIssuerLocation(String issuer, RestOperations restOperations,
+                                                      TenantJwkSourceFactory jwkSources) {
+        String jwkSetUri = discoverJwkSetUri(issuer, restOperations);
+        JWKSource<SecurityContext> jwkSource = jwkSources.create(jwkSetUri);
+        JWSKeySelector<SecurityContext> keySelector =
+                new JWSVerificationKeySelector<>(signingAlgorithms(jwkSource), jwkSource);
+        AtomicReference<JWTProcessor<SecurityContext>> processor = new AtomicReference<>();
+        NimbusJwtDecoder.withJwkSetUri(jwkSetUri)
+                .restOperations(restOperations)
+                .jwtProcessorCustomizer(configured -> {
+                    configured.setJWSKeySelector(keySelector);
+                    processor.set(configured);
+                })
+                .build();
+        return new TenantJwtDecoder(processor.get(), JwtValidators.createDefaultWithIssuer(issuer));
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        JWT parsed = JwtHelper.takeParsed(token);
+        return decode(token, parsed != null ? parsed : parse(token));
+    }
+
+    public Jwt decode(String token, JWT parsedJwt) throws JwtException {
+        if (parsedJwt instanceof PlainJWT) {
+            throw new BadJwtException("Unsupported algorithm of " + parsedJwt.getHeader().getAlgorithm());
+        }
+        return validateJwt(createJwt(token, parsedJwt));
+    }
+
+    private JWT parse(String token) {
+        try {
+            return JWTParser.parse(token);
+        } catch (ParseException ex) {
+            throw new BadJwtException(String.format(DECODING_ERROR_MESSAGE_TEMPLATE, "Malformed token"), ex);
+        } catch (Exception ex) {
+            throw new BadJwtException(String.format(DECODING_ERROR_MESSAGE_TEMPLATE, ex.getMessage()), ex);
+        }
+    }
+
+    private Jwt createJwt(String token, JWT parsedJwt) {
+        try {
+            JWTClaimsSet jwtClaimsSet = jwtProcessor.process(parsedJwt, null);
+            Map<String, Object> headers = new LinkedHashMap<>(parsedJwt.getHeader().toJSONObject());
+            Map<String, Object> claims = claimSetConverter.convert(jwtClaimsSet.getClaims());
+            return Jwt.withTokenValue(token)
+                    .headers(h -> h.putAll(headers))
+                    .claims(c -> c.putAll(claims))
+                    .build();
+        } catch (RateLimitReachedException ex) {
+            // Unknown kid and the issuer's JWKS was just refetched: nothing can verify this token yet
+            throw new BadJwtException(String.format(DECODING_ERROR_MESSAGE_TEMPLATE, ex.getMessage()), ex);
+        } catch (RemoteKeySourceException ex) {
+            if (ex.getCause() instanceof ParseException) {
+                throw new JwtException(String.format(DECODING_ERROR_MESSAGE_TEMPLATE, "Malformed Jwk set"), ex);
+            }
+            throw new JwtException(String.format(DECODING_ERROR_MESSAGE_TEMPLATE, ex.getMessage()), ex);
+        } catch (JOSEException ex) {
+            throw new JwtException(String.format(DECODING_ERROR_MESSAGE_TEMPLATE, ex.getMessage()), ex);
+        } catch (Exception ex) {
+            if (ex.getCause() instanceof ParseException) {
+                throw new BadJwtException(String.format(DECODING_ERROR_MESSAGE_TEMPLATE, "Malformed payload"), ex);
+            }
+            throw new BadJwtException(String.format(DECODING_ERROR_MESSAGE_TEMPLATE, ex.getMessage()), ex);
+        }
+    }
+
+    private Jwt validateJwt(Jwt jwt) {
+        OAuth2TokenValidatorResult result = jwtValidator.validate(jwt);
+        if (result.hasErrors()) {
+            Collection<OAuth2Error> errors = result.getErrors();
+            throw new JwtValidationException(getJwtValidationExceptionMessage(errors), errors);
+        }
+        return jwt;
+    }
+
+    private String getJwtValidationExceptionMessage(Collection<OAuth2Error> errors) {
+        for (OAuth2Error oAuth2Error : errors) {
+            if (StringUtils.hasLength(oAuth2Error.getDescription())) {
+                return String.format(DECODING_ERROR_MESSAGE_TEMPLATE, oAuth2Error.getDescription());
+            }
+        }
+        return "Unable to validate Jwt";
+    }
+
+    private static String discoverJwkSetUri(String issuer, RestOperations restOperations) {
+        Map<String, Object> configuration;
+        try {
+            RequestEntity<Void> request = RequestEntity.get(issuer + OIDC_METADATA_PATH).build();
+            configuration = restOperations.exchange(request, STRING_OBJECT_MAP).getBody();
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException(
+                    "Unable to resolve the Configuration with the provided Issuer of \"" + issuer + "\"", ex);
+        }
+        Assert.notNull(configuration, "The OpenID configuration of \"" + issuer + "\" is empty");
+        Object metadataIssuer = configuration.get("issuer");
+        if (!issuer.equals(String.valueOf(metadataIssuer))) {
+            throw new IllegalStateException("The Issuer \"" + metadataIssuer
+                    + "\" provided in the configuration did not match the requested issuer \"" + issuer + "\"");
+        }
+        Object jwkSetUri = configuration.get("jwks_uri");
+        Assert.notNull(jwkSetUri, "The public JWK set URI must not be null");
+        return jwkSetUri.toString();
+    }
+
+    // Algorithms the published keys can verify, as JwtDecoders.fromIssuerLocation derives them
+    private static Set<JWSAlgorithm> signingAlgorithms(JWKSource<SecurityContext> jwkSource) {
+        JWKMatcher signingKeys = new JWKMatcher.Builder()
+                .publicOnly(true)
+                .keyUses(KeyUse.SIGNATURE, null)
+                .keyTypes(KeyType.RSA, KeyType.EC)
+                .build();
+        Set<JWSAlgorithm> algorithms = new HashSet<>();
+        try {
+            for (JWK jwk : jwkSource.get(new JWKSelector(signingKeys), null)) {
+                if (jwk.getAlgorithm() != null) {
+                    algorithms.add(JWSAlgorithm.parse(jwk.getAlgorithm().getName()));
+                } else if (KeyType.RSA.equals(jwk.getKeyType())) {
+                    algorithms.addAll(JWSAlgorithm.Family.RSA);
+                } else if (KeyType.EC.equals(jwk.getKeyType())) {
+                    algorithms.addAll(JWSAlgorithm.Family.EC);
+                }
+            }
+        } catch (KeySourceException ex) {
+            throw new IllegalStateException(ex);
+        }
+        Assert.notEmpty(algorithms, "Failed to find any algorithms from the JWK set");
+        return algorithms;
+    }
+}
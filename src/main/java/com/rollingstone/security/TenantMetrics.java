@@ -0,0 +1,194 @@
+package com.rollingstone.security;
+
+import com.rollingstone.config.TenantMetricsProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Authentication metrics tagged by tenant and issuer. Tag values come from the registry, never from the token:
+// unregistered issuers are tagged unknown, and tenants beyond max-tagged-tenants (pinned ones aside) share
+// tenant=other/issuer=other, so the number of series stays bounded however many tenants register.
+@Component
+public class TenantMetrics {
+
+    // Request attribute carrying the bounded tenant tag to the http.server.requests observation
+    public static final String TENANT_ATTRIBUTE = TenantMetrics.class.getName() + ".tenant";
+
+    public static final String MISSING_TOKEN = "missing_token";
+    public static final String MALFORMED_TOKEN = "malformed_token";
+    public static final String UNKNOWN_ISSUER = "unknown_issuer";
+    public static final String DECODER_UNAVAILABLE = "decoder_unavailable";
+
+    private static final String OTHER = "other";
+    private static final String UNKNOWN = "unknown";
+
+    private final DynamicIssuerRegistry issuerRegistry;
+    private final MeterRegistry meterRegistry;
+    private final int maxTaggedTenants;
+    private final Set<String> pinnedTenants;
+    // Tenants given a tag of their own; slots are never handed back, since their series outlive them anyway
+    private final Set<String> taggedTenants = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock tagLock = new ReentrantLock();
+    private final Map<String, IssuerMeters> metersByIssuer = new ConcurrentHashMap<>();
+    private final IssuerMeters otherMeters;
+    private final IssuerMeters unknownMeters;
+
+    public TenantMetrics(DynamicIssuerRegistry issuerRegistry, TenantMetricsProperties properties,
+                         MeterRegistry meterRegistry) {
+        this.issuerRegistry = issuerRegistry;
+        this.meterRegistry = meterRegistry;
+        this.maxTaggedTenants = properties.getMaxTaggedTenants();
+        this.pinnedTenants = Set.copyOf(properties.getPinnedTenants());
+        this.otherMeters = new IssuerMeters(OTHER, OTHER);
+        this.unknownMeters = new IssuerMeters(UNKNOWN, UNKNOWN);
+        issuerRegistry.addListener((tenantId, previousIssuer, issuer) -> {
+            if (previousIssuer != null) {
+                metersByIssuer.remove(previousIssuer);
+            }
+        });
+    }
+
+    // Bounded tenant tag value for issuer
+    public String tenantTag(String issuer) {
+        return metersFor(issuer).tenantTag;
+    }
+
+    public void recordIssuerExtraction(String issuer, long startNanos) {
+        record(metersFor(issuer).extraction, startNanos);
+    }
+
+    public void recordManagerResolution(String issuer, boolean cached, long startNanos) {
+        IssuerMeters meters = metersFor(issuer);
+        record(cached ? meters.resolutionHit : meters.resolutionMiss, startNanos);
+    }
+
+    public void recordDecoderBuild(String issuer, boolean success, long startNanos) {
+        record(Timer.builder("security.auth.decoder.build")
+                .tags(metersFor(issuer).tags)
+                .tag("outcome", success ? "success" : "failure")
+                .register(meterRegistry), startNanos);
+    }
+
+    public void recordFailure(String issuer, String reason) {
+        recordFailure(metersFor(issuer), reason);
+    }
+
+    // Times signature verification plus claim validation, and counts rejected tokens by reason
+    public JwtDecoder instrument(String issuer, JwtDecoder decoder) {
+        IssuerMeters meters = metersFor(issuer);
+        return token -> {
+            long start = System.nanoTime();
+            try {
+                Jwt jwt = decoder.decode(token);
+                record(meters.verified, start);
+                return jwt;
+            } catch (JwtException e) {
+                record(meters.rejected, start);
+                recordFailure(meters, failureReason(e));
+                throw e;
+            }
+        };
+    }
+
+    private IssuerMeters metersFor(String issuer) {
+        IssuerMeters meters = issuer == null ? null : metersByIssuer.get(issuer);
+        if (meters != null) {
+            return meters;
+        }
+        String tenantId = issuerRegistry.findTenant(issuer);
+        if (tenantId == null) {
+            return unknownMeters;
+        }
+        // Built outside the map: meter registration takes the registry's locks, which must not be held inside a
+        // ConcurrentHashMap bin lock. A racing loser's meters are the same registered series, so nothing leaks.
+        IssuerMeters created = claimTag(tenantId) ? new IssuerMeters(tenantId, issuer) : otherMeters;
+        IssuerMeters raced = metersByIssuer.putIfAbsent(issuer, created);
+        return raced != null ? raced : created;
+    }
+
+    private boolean claimTag(String tenantId) {
+        if (pinnedTenants.contains(tenantId) || taggedTenants.contains(tenantId)) {
+            return true;
+        }
+        tagLock.lock();
+        try {
+            if (taggedTenants.size() >= maxTaggedTenants) {
+                return taggedTenants.contains(tenantId);
+            }
+            taggedTenants.add(tenantId);
+            return true;
+        } finally {
+            tagLock.unlock();
+        }
+    }
+
+    private void recordFailure(IssuerMeters meters, String reason) {
+        Counter.builder("security.auth.failures")
+                .tags(meters.tags)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static String failureReason(JwtException e) {
+        if (e instanceof JwtValidationException invalid) {
+            for (OAuth2Error error : invalid.getErrors()) {
+                if (error.getDescription() != null && error.getDescription().contains("expired")) {
+                    return "expired";
+                }
+            }
+            return "invalid_claims";
+        }
+        // Anything else that is not the token's fault means its keys could not be fetched
+        return e instanceof BadJwtException ? "invalid_token" : "jwks_unavailable";
+    }
+
+    private static void record(Timer timer, long startNanos) {
+        timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private final class IssuerMeters {
+
+        private final String tenantTag;
+        private final Tags tags;
+        private final Timer extraction;
+        private final Timer resolutionHit;
+        private final Timer resolutionMiss;
+        private final Timer verified;
+        private final Timer rejected;
+
+        private IssuerMeters(String tenant, String issuer) {
+            this.tenantTag = tenant;
+            this.tags = Tags.of("tenant", tenant, "issuer", issuer);
+            this.extraction = Timer.builder("security.auth.issuer.extraction").tags(tags).register(meterRegistry);
+            this.resolutionHit = resolution("hit");
+            this.resolutionMiss = resolution("miss");
+            this.verified = verification("success");
+            this.rejected = verification("failure");
+        }
+
+        private Timer resolution(String cache) {
+            return Timer.builder("security.auth.decoder.resolution").tags(tags).tag("cache", cache)
+                    .register(meterRegistry);
+        }
+
+        private Timer verification(String outcome) {
+            return Timer.builder("security.auth.verification").tags(tags).tag("outcome", outcome)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.rollingstone.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+// One page of a keyset-paginated listing. nextCursor is opaque to clients and null on the last page;
+// passing it back seeks straight past the last id returned, so deep pages cost the same as the first.
+public record CursorPage<T>(List<T> items, String nextCursor) {
+
+    // Seeking after id 0 starts from the beginning; ids are generated from 1
+    static final long FIRST = 0L;
+
+    // fetched holds up to limit + 1 rows; the extra row only tells us whether another page exists
+    static <T> CursorPage<T> of(List<T> fetched, int limit, ToLongFunction<T> id) {
+        if (fetched.size() <= limit) {
+            return new CursorPage<>(fetched, null);
+        }
+        List<T> items = fetched.subList(0, limit);
+        return new CursorPage<>(items, encode(id.applyAsLong(items.get(limit - 1))));
+    }
+
+    static long decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return FIRST;
+        }
+        long afterId;
+        try {
+            afterId = Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+        if (afterId < FIRST) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        return afterId;
+    }
+
+    private static String encode(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(lastId).getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,153 @@
+package com.rollingstone.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rollingstone.config.OrderCacheProperties;
+import com.rollingstone.model.OrderHeader;
+import com.rollingstone.security.TenantIdentifierResolver;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+// Read-through cache for single orders (with lines) and for an order's lines, keyed by (tenant, order id).
+// Concurrent misses on one key share a single load, run on the first caller's thread; the others wait on its
+// future. Writes invalidate after commit, so a load racing a write never caches what the write replaced.
+// cache.gets{cache=orders|orderLines} and order.cache.hit.ratio are published through /actuator/metrics.
+@Component
+public class OrderCache {
+
+    private final boolean enabled;
+    private final TenantIdentifierResolver tenantResolver;
+    private final ReadThrough<OrderHeader> orders;
+    private final ReadThrough<OrderLines> orderLines;
+    private final List<OrderInvalidationListener> listeners = new CopyOnWriteArrayList<>();
+
+    public OrderCache(OrderCacheProperties properties, TenantIdentifierResolver tenantResolver,
+                      MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        this.tenantResolver = tenantResolver;
+        this.orders = new ReadThrough<>("orders", properties, meterRegistry);
+        this.orderLines = new ReadThrough<>("orderLines", properties, meterRegistry);
+    }
+
+    // An order with its lines loaded; absent orders are not cached
+    public Optional<OrderHeader> order(long orderId, Supplier<Optional<OrderHeader>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        return Optional.ofNullable(orders.get(key(orderId), () -> loader.get().orElse(null)));
+    }
+
+    // Lines of an existing order; absent orders (a null load) are not cached
+    public Optional<OrderLines> lines(long orderId, Supplier<Optional<OrderLines>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        return Optional.ofNullable(orderLines.get(key(orderId), () -> loader.get().orElse(null)));
+    }
+
+    // For a write by the current tenant, who can only have touched its own orders
+    public void invalidate(long orderId) {
+        String tenantId = tenantResolver.resolveCurrentTenantIdentifier();
+        invalidate(tenantResolver.isRoot(tenantId) ? null : tenantId, orderId);
+    }
+
+    // For a write to the order or any of its lines. tenantId is the order's owner, null if unknown.
+    public void invalidate(String tenantId, long orderId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidateNow(tenantId, orderId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidateNow(tenantId, orderId);
+            }
+        });
+    }
+
+    // Drops this node's entries without telling listeners; the receiving end of a remote invalidation
+    public void evict(String tenantId, long orderId) {
+        if (tenantId == null) {
+            orders.evictOrder(orderId);
+            orderLines.evictOrder(orderId);
+            return;
+        }
+        // The root tenant reads every tenant's orders, so its entry goes too
+        for (String tenant : List.of(tenantId, TenantIdentifierResolver.ROOT)) {
+            orders.evict(new Key(tenant, orderId));
+            orderLines.evict(new Key(tenant, orderId));
+        }
+    }
+
+    public void addListener(OrderInvalidationListener listener) {
+        listeners.add(listener);
+    }
+
+    private void invalidateNow(String tenantId, long orderId) {
+        evict(tenantId, orderId);
+        listeners.forEach(listener -> listener.onInvalidate(tenantId, orderId));
+    }
+
+    private Key key(long orderId) {
+        return new Key(tenantResolver.resolveCurrentTenantIdentifier(), orderId);
+    }
+
+    private record Key(String tenantId, long orderId) {
+    }
+
+    private static final class ReadThrough<V> {
+
+        private final AsyncCache<Key, V> cache;
+
+        ReadThrough(String name, OrderCacheProperties properties, MeterRegistry meterRegistry) {
+            this.cache = Caffeine.newBuilder()
+                    .maximumSize(properties.getMaximumSize())
+                    .expireAfterWrite(properties.getExpireAfterWrite())
+                    .recordStats()
+                    .buildAsync();
+            CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), name);
+            Gauge.builder("order.cache.hit.ratio", cache, c -> c.synchronous().stats().hitRate())
+                    .tag("cache", name)
+                    .register(meterRegistry);
+        }
+
+        V get(Key key, Supplier<V> loader) {
+            CompletableFuture<V> loading = new CompletableFuture<>();
+            CompletableFuture<V> value = cache.get(key, (k, executor) -> loading);
+            if (value == loading) {
+                // This caller missed first: load here, in its transaction and security context.
+                // A null or failed result is dropped from the cache by Caffeine.
+                try {
+                    loading.complete(loader.get());
+                } catch (RuntimeException e) {
+                    loading.completeExceptionally(e);
+                }
+            }
+            try {
+                return value.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        void evict(Key key) {
+            cache.synchronous().invalidate(key);
+        }
+
+        // Owner unknown: scan for the order under every tenant
+        void evictOrder(long orderId) {
+            cache.asMap().keySet().removeIf(key -> key.orderId() == orderId);
+        }
+    }
+}
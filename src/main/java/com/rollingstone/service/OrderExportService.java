@@ -0,0 +1,62 @@
+package com.rollingstone.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.rollingstone.model.OrderHeader;
+import com.rollingstone.model.OrderJson;
+import com.rollingstone.repository.OrderHeaderRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+// Writes matching orders as NDJSON (one order header per line) while reading them off a database cursor.
+// The persistence context is cleared every fetch batch, so memory stays flat whatever the row count.
+@Service
+public class OrderExportService {
+
+    // Same as the fetch size hint on OrderHeaderRepository.streamForExport
+    private static final int CLEAR_INTERVAL = 1000;
+
+    private final OrderHeaderRepository orderHeaderRepository;
+    private final EntityManager entityManager;
+    private final ObjectWriter rowWriter;
+
+    public OrderExportService(OrderHeaderRepository orderHeaderRepository, EntityManager entityManager,
+                              ObjectMapper objectMapper) {
+        this.orderHeaderRepository = orderHeaderRepository;
+        this.entityManager = entityManager;
+        // Headers only: serializing orderLines would lazy-load every order's lines one query at a time
+        this.rowWriter = objectMapper.writerFor(OrderHeader.class)
+                .withAttribute(OrderJson.WITHOUT_ORDER_LINES, Boolean.TRUE)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    @Transactional(readOnly = true)
+    public long exportOrders(String status, String customerNumber, LocalDateTime from, LocalDateTime to,
+                             OutputStream out) throws IOException {
+        long written = 0;
+        try (Stream<OrderHeader> orders = orderHeaderRepository.streamForExport(status, customerNumber, from, to);
+             JsonGenerator json = rowWriter.createGenerator(out)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Rows are newline-terminated below instead of space-separated
+            json.setRootValueSeparator(null);
+            Iterator<OrderHeader> rows = orders.iterator();
+            while (rows.hasNext()) {
+                rowWriter.writeValue(json, rows.next());
+                json.writeRaw('\n');
+                if (++written % CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        return written;
+    }
+}
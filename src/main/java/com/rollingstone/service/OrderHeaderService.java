@@ -1,9 +1,19 @@
 package com.rollingstone.service;
 
 
+import com.rollingstone.config.PaginationProperties;
+import com.rollingstone.model.FieldSelection;
 import com.rollingstone.model.OrderHeader;
+import com.rollingstone.model.OrderHeaderView;
+import com.rollingstone.model.OrderPatch;
 import com.rollingstone.repository.OrderHeaderRepository;
+import com.rollingstone.repository.OrderUpdateRepository;
+import com.rollingstone.repository.OrderViewRepository;
+import com.rollingstone.security.TenantIdentifierResolver;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -11,33 +21,149 @@ import java.util.Optional;
 @Service
 public class OrderHeaderService {
 
+    private static final String STATUS = "orderStatus";
+
     private final OrderHeaderRepository orderHeaderRepository;
+    private final OrderViewRepository orderViewRepository;
+    private final OrderUpdateRepository orderUpdateRepository;
+    private final OrderCache orderCache;
+    private final OrderStatusCounters statusCounters;
+    private final TenantIdentifierResolver tenantResolver;
+    private final PaginationProperties pagination;
 
-    public OrderHeaderService(OrderHeaderRepository orderHeaderRepository) {
+    public OrderHeaderService(OrderHeaderRepository orderHeaderRepository, OrderViewRepository orderViewRepository,
+                              OrderUpdateRepository orderUpdateRepository, OrderCache orderCache, OrderStatusCounters statusCounters,
+                              TenantIdentifierResolver tenantResolver, PaginationProperties pagination) {
         this.orderHeaderRepository = orderHeaderRepository;
+        this.orderViewRepository = orderViewRepository;
+        this.orderUpdateRepository = orderUpdateRepository;
+        this.orderCache = orderCache;
+        this.statusCounters = statusCounters;
+        this.tenantResolver = tenantResolver;
+        this.pagination = pagination;
+    }
+
+    // From counters kept up to date on every write; no query
+    public OrderStatusCounts countOrdersByStatus() {
+        return statusCounters.countsFor(tenantResolver.resolveCurrentTenantIdentifier());
+    }
+
+    // Header columns only, no entities; customerNumber and status narrow the listing when not null
+    public CursorPage<OrderHeaderView> findOrderViews(String customerNumber, String status, String cursor,
+                                                      Integer limit, FieldSelection selection) {
+        int pageSize = pagination.pageSize(limit);
+        return CursorPage.of(orderViewRepository.findHeaders(customerNumber, status, CursorPage.decode(cursor),
+                pageSize + 1, selection), pageSize, OrderHeaderView::orderId);
+    }
+
+    // Version-only lookup for conditional requests
+    public Optional<Long> findOrderVersion(Long id) {
+        return orderHeaderRepository.findVersionByOrderId(id);
+    }
+
+    public Optional<OrderHeaderView> findOrderView(Long id) {
+        return orderViewRepository.findHeader(id);
     }
 
-    public List<OrderHeader> findAllOrders() {
-        return orderHeaderRepository.findAll();
+    // withLines == false leaves orderLines unloaded (serialized as null); true costs one more query per page
+    @Transactional(readOnly = true)
+    public CursorPage<OrderHeader> findOrders(String cursor, Integer limit, boolean withLines) {
+        int pageSize = pagination.pageSize(limit);
+        return page(orderHeaderRepository.findByOrderIdGreaterThanOrderByOrderIdAsc(
+                CursorPage.decode(cursor), Limit.of(pageSize + 1)), pageSize, withLines);
     }
 
     public Optional<OrderHeader> findOrderById(Long id) {
         return orderHeaderRepository.findById(id);
     }
 
-    public List<OrderHeader> findOrdersByCustomer(String customerNumber) {
-        return orderHeaderRepository.findByCustomerNumber(customerNumber);
+    // With lines, answered from OrderCache; the cached order is shared, so callers must not modify it
+    public Optional<OrderHeader> findOrderById(Long id, boolean withLines) {
+        if (withLines) {
+            return orderCache.order(id, () -> orderHeaderRepository.findWithLinesByOrderId(id));
+        }
+        return orderHeaderRepository.findById(id);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<OrderHeader> findOrdersByCustomer(String customerNumber, String cursor, Integer limit,
+                                                        boolean withLines) {
+        int pageSize = pagination.pageSize(limit);
+        return page(orderHeaderRepository.findByCustomerNumberAndOrderIdGreaterThanOrderByOrderIdAsc(
+                customerNumber, CursorPage.decode(cursor), Limit.of(pageSize + 1)), pageSize, withLines);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<OrderHeader> findOrdersByStatus(String status, String cursor, Integer limit,
+                                                      boolean withLines) {
+        int pageSize = pagination.pageSize(limit);
+        return page(orderHeaderRepository.findByOrderStatusAndOrderIdGreaterThanOrderByOrderIdAsc(
+                status, CursorPage.decode(cursor), Limit.of(pageSize + 1)), pageSize, withLines);
     }
 
-    public List<OrderHeader> findOrdersByStatus(String status) {
-        return orderHeaderRepository.findByOrderStatus(status);
+    // Caller holds the transaction, so the fetch-join fills in the lines of the headers it already loaded.
+    // Lines are never fetch-joined into the Limit query itself, which would page in memory.
+    private CursorPage<OrderHeader> page(List<OrderHeader> fetched, int pageSize, boolean withLines) {
+        CursorPage<OrderHeader> page = CursorPage.of(fetched, pageSize, OrderHeader::getOrderId);
+        if (withLines && !page.items().isEmpty()) {
+            orderHeaderRepository.findWithLinesByOrderIdIn(page.items().stream().map(OrderHeader::getOrderId).toList());
+        }
+        return page;
     }
 
+    // An update whose only changes are to existing lines leaves the header clean, so its version is forced up
+    @Transactional
     public OrderHeader saveOrder(OrderHeader orderHeader) {
-        return orderHeaderRepository.save(orderHeader);
+        boolean update = orderHeader.getOrderId() != null && orderHeader.getVersion() != null;
+        OrderHeader saved = orderHeaderRepository.save(orderHeader);
+        if (update) {
+            orderHeaderRepository.findWithVersionIncrementByOrderId(saved.getOrderId());
+        }
+        orderCache.invalidate(saved.getTenantId(), saved.getOrderId());
+        return saved;
+    }
+
+    // Applies a partial update as targeted statements against the given version: one UPDATE for the header (which
+    // also bumps the version, so it doubles as the concurrency check), one per changed line, one DELETE for removed
+    // lines and inserts for new ones. Nothing is read first except the current status when the patch changes it.
+    // The new version, or empty if the order does not exist; a stale version throws.
+    @Transactional
+    public Optional<Long> patchOrder(long orderId, long version, OrderPatch patch) {
+        OrderHeaderRepository.StatusSnapshot before = null;
+        if (patch.header().containsKey(STATUS)) {
+            before = orderHeaderRepository.findStatusByOrderIdAndVersion(orderId, version).orElse(null);
+            if (before == null) {
+                return missingOrStale(orderId);
+            }
+        }
+        if (orderUpdateRepository.updateHeader(orderId, version, patch.header()) == 0) {
+            return missingOrStale(orderId);
+        }
+        patch.lineUpdates().forEach((orderLineId, changes) -> {
+            if (orderUpdateRepository.updateLine(orderId, orderLineId, changes) == 0) {
+                throw new IllegalArgumentException("Order line " + orderLineId + " is not part of order " + orderId);
+            }
+        });
+        if (!patch.removedLines().isEmpty()
+                && orderUpdateRepository.deleteLines(orderId, patch.removedLines()) != patch.removedLines().size()) {
+            throw new IllegalArgumentException("Removed order lines are not all part of order " + orderId);
+        }
+        orderUpdateRepository.addLines(orderId, patch.newLines());
+
+        // The UPDATE bypasses OrderStatusListener
+        Object status = patch.header().get(STATUS);
+        if (before != null && !before.getOrderStatus().equals(status)) {
+            statusCounters.record(before.getTenantId(), before.getOrderStatus(), -1);
+            statusCounters.record(before.getTenantId(), (String) status, 1);
+        }
+        orderCache.invalidate(orderId);
+        return Optional.of(version + 1);
     }
 
-    public void deleteOrder(Long id) {
-        orderHeaderRepository.deleteById(id);
+    private Optional<Long> missingOrStale(long orderId) {
+        if (orderHeaderRepository.findVersionByOrderId(orderId).isEmpty()) {
+            return Optional.empty();
+        }
+        throw new ObjectOptimisticLockingFailureException(OrderHeader.class, orderId);
     }
 }
@@ -0,0 +1,15 @@
+package com.rollingstone.service;
+
+import com.rollingstone.model.OrderHeader;
+
+// Outcome for one submitted order, by its position in the request: orderId when stored, error when not
+public record OrderIngestResult(int index, String orderNumber, Long orderId, String error) {
+
+    static OrderIngestResult created(int index, OrderHeader order) {
+        return new OrderIngestResult(index, order.getOrderNumber(), order.getOrderId(), null);
+    }
+
+    static OrderIngestResult failed(int index, String orderNumber, String error) {
+        return new OrderIngestResult(index, orderNumber, null, error);
+    }
+}
@@ -0,0 +1,101 @@
+package com.rollingstone.service;
+
+import com.rollingstone.config.IngestProperties;
+import com.rollingstone.model.OrderHeader;
+import com.rollingstone.model.OrderLine;
+import jakarta.persistence.EntityManager;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+// Stores a stream of new orders chunk by chunk: one transaction, one flush (JDBC-batched inserts) and one clear
+// per chunk. A chunk that fails is replayed one order per transaction so every order gets its own result.
+@Service
+public class OrderIngestService {
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public OrderIngestService(EntityManager entityManager, PlatformTransactionManager transactionManager,
+                              IngestProperties properties) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = properties.getChunkSize();
+    }
+
+    public List<OrderIngestResult> ingest(Iterator<OrderHeader> orders) {
+        List<OrderIngestResult> results = new ArrayList<>();
+        List<OrderHeader> chunk = new ArrayList<>(chunkSize);
+        int index = 0;
+        while (true) {
+            OrderHeader order;
+            try {
+                if (!orders.hasNext()) {
+                    break;
+                }
+                order = orders.next();
+            } catch (RuntimeException e) {
+                // Unreadable input: what was read so far is still stored, nothing after it is
+                store(chunk, index - chunk.size(), results);
+                results.add(OrderIngestResult.failed(index, null, "Unreadable order: " + message(e)));
+                return results;
+            }
+            chunk.add(order);
+            index++;
+            if (chunk.size() == chunkSize) {
+                store(chunk, index - chunk.size(), results);
+                chunk.clear();
+            }
+        }
+        store(chunk, index - chunk.size(), results);
+        return results;
+    }
+
+    private void store(List<OrderHeader> chunk, int firstIndex, List<OrderIngestResult> results) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> persist(chunk));
+            for (int i = 0; i < chunk.size(); i++) {
+                results.add(OrderIngestResult.created(firstIndex + i, chunk.get(i)));
+            }
+        } catch (RuntimeException e) {
+            for (int i = 0; i < chunk.size(); i++) {
+                OrderHeader order = chunk.get(i);
+                try {
+                    transactionTemplate.executeWithoutResult(status -> persist(List.of(order)));
+                    results.add(OrderIngestResult.created(firstIndex + i, order));
+                } catch (RuntimeException failure) {
+                    results.add(OrderIngestResult.failed(firstIndex + i, order.getOrderNumber(), message(failure)));
+                }
+            }
+        }
+    }
+
+    private void persist(List<OrderHeader> orders) {
+        for (OrderHeader order : orders) {
+            // Always new rows: ids from the request, or from a rolled-back attempt, are dropped
+            order.setOrderId(null);
+            if (order.getOrderLines() != null) {
+                for (OrderLine line : order.getOrderLines()) {
+                    line.setOrderLineId(null);
+                    line.setOrderHeader(order);
+                }
+            }
+            entityManager.persist(order);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private static String message(RuntimeException e) {
+        return NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+    }
+}
@@ -0,0 +1,10 @@
+package com.rollingstone.service;
+
+// Told about every order this node invalidates after a committed write, e.g. to publish it to other nodes,
+// which apply it with OrderCache.evict
+@FunctionalInterface
+public interface OrderInvalidationListener {
+
+    // tenantId is null when the owning tenant was not known to the writer (every tenant's entry is dropped)
+    void onInvalidate(String tenantId, long orderId);
+}
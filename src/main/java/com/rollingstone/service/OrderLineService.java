@@ -1,9 +1,15 @@
 package com.rollingstone.service;
 
 
+import com.rollingstone.config.PaginationProperties;
+import com.rollingstone.model.FieldSelection;
 import com.rollingstone.model.OrderLine;
+import com.rollingstone.model.OrderLineView;
+import com.rollingstone.repository.OrderHeaderRepository;
 import com.rollingstone.repository.OrderLineRepository;
+import com.rollingstone.repository.OrderViewRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -12,29 +18,69 @@ import java.util.Optional;
 public class OrderLineService {
 
     private final OrderLineRepository orderLineRepository;
+    private final OrderHeaderRepository orderHeaderRepository;
+    private final OrderViewRepository orderViewRepository;
+    private final OrderCache orderCache;
+    private final PaginationProperties pagination;
 
-    public OrderLineService(OrderLineRepository orderLineRepository) {
+    public OrderLineService(OrderLineRepository orderLineRepository, OrderHeaderRepository orderHeaderRepository,
+                            OrderViewRepository orderViewRepository, OrderCache orderCache,
+                            PaginationProperties pagination) {
         this.orderLineRepository = orderLineRepository;
+        this.orderHeaderRepository = orderHeaderRepository;
+        this.orderViewRepository = orderViewRepository;
+        this.orderCache = orderCache;
+        this.pagination = pagination;
     }
 
-    public List<OrderLine> findAllLines() {
-        return orderLineRepository.findAll();
+    public CursorPage<OrderLineView> findLines(String cursor, Integer limit, FieldSelection selection) {
+        int pageSize = pagination.pageSize(limit);
+        return CursorPage.of(orderViewRepository.findLines(null, CursorPage.decode(cursor), pageSize + 1, selection),
+                pageSize, OrderLineView::orderLineId);
     }
 
     public Optional<OrderLine> findLineById(Long id) {
         return orderLineRepository.findById(id);
     }
 
-    public List<OrderLine> findLinesByOrderId(Long orderId) {
-        return orderLineRepository.findByOrderHeaderOrderId(orderId);
+    public Optional<OrderLineView> findLineView(Long id) {
+        return orderViewRepository.findLine(id);
     }
 
+    // Answered from OrderCache with every column; field selection is applied when the lines are written.
+    // Empty when the order does not exist.
+    public Optional<OrderLines> findLinesByOrderId(Long orderId) {
+        return orderCache.lines(orderId, () -> orderHeaderRepository.findVersionByOrderId(orderId)
+                .map(version -> new OrderLines(version, orderViewRepository.findLines(orderId, CursorPage.FIRST,
+                        null, FieldSelection.all(OrderLineView.class)))));
+    }
+
+    // Version of the order owning the lines, without loading them
+    public Optional<Long> findOrderVersion(Long orderId) {
+        return orderHeaderRepository.findVersionByOrderId(orderId);
+    }
+
+    // Line writes bump the owning order's version too, since its ETags cover the lines
+    @Transactional
     public OrderLine saveLine(OrderLine orderLine) {
-        return orderLineRepository.save(orderLine);
+        OrderLine saved = orderLineRepository.save(orderLine);
+        if (saved.getOrderHeader() != null) {
+            touchOrder(saved.getTenantId(), saved.getOrderHeader().getOrderId());
+        }
+        return saved;
     }
 
+    // Looked up first so the owning order's version and cache entries can be updated
+    @Transactional
     public void deleteLine(Long id) {
-        orderLineRepository.deleteById(id);
+        orderLineRepository.findById(id).ifPresent(line -> {
+            orderLineRepository.delete(line);
+            touchOrder(line.getTenantId(), line.getOrderHeader().getOrderId());
+        });
     }
-}
 
+    private void touchOrder(String tenantId, Long orderId) {
+        orderHeaderRepository.findWithVersionIncrementByOrderId(orderId);
+        orderCache.invalidate(tenantId, orderId);
+    }
+}
@@ -0,0 +1,10 @@
+package com.rollingstone.service;
+
+import com.rollingstone.model.OrderLineView;
+
+import java.util.List;
+
+// An order's lines with the order version read just before them; the lines are at least that new, so an
+// ETag built from orderVersion can go stale but never claims a version the lines have not caught up with
+public record OrderLines(long orderVersion, List<OrderLineView> lines) {
+}
@@ -0,0 +1,5 @@
+package com.rollingstone.service;
+
+// Orders deleted by a bulk delete, and how many transactions it took
+public record OrderPurgeResult(long deleted, int chunks) {
+}
@@ -0,0 +1,102 @@
+package com.rollingstone.service;
+
+import com.rollingstone.config.PurgeProperties;
+import com.rollingstone.repository.OrderHeaderRepository;
+import com.rollingstone.repository.OrderHeaderRepository.StatusSnapshot;
+import com.rollingstone.repository.OrderUpdateRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+// Deletes orders with set-based statements instead of loading each order and its lines for cascade and
+// orphan removal. Per chunk, one query reads and locks the orders' ids and statuses, one DELETE removes all of
+// their lines and one removes the headers. Each chunk is its own transaction, so locks are held briefly.
+@Service
+public class OrderPurgeService {
+
+    private final OrderHeaderRepository orderHeaderRepository;
+    private final OrderUpdateRepository orderUpdateRepository;
+    private final OrderCache orderCache;
+    private final OrderStatusCounters statusCounters;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public OrderPurgeService(OrderHeaderRepository orderHeaderRepository, OrderUpdateRepository orderUpdateRepository,
+                             OrderCache orderCache, OrderStatusCounters statusCounters,
+                             PlatformTransactionManager transactionManager, PurgeProperties properties) {
+        this.orderHeaderRepository = orderHeaderRepository;
+        this.orderUpdateRepository = orderUpdateRepository;
+        this.orderCache = orderCache;
+        this.statusCounters = statusCounters;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = properties.getChunkSize();
+    }
+
+    // false when there was no such order
+    public boolean deleteOrder(long orderId) {
+        return deleteChunk(() -> orderHeaderRepository.findForDelete(List.of(orderId))) > 0;
+    }
+
+    public OrderPurgeResult deleteOrders(List<Long> orderIds) {
+        long deleted = 0;
+        int chunks = 0;
+        for (int from = 0; from < orderIds.size(); from += chunkSize) {
+            List<Long> chunk = orderIds.subList(from, Math.min(from + chunkSize, orderIds.size()));
+            deleted += deleteChunk(() -> orderHeaderRepository.findForDelete(chunk));
+            chunks++;
+        }
+        return new OrderPurgeResult(deleted, chunks);
+    }
+
+    // Every order with the given status and/or placed before the given time; at least one is required
+    public OrderPurgeResult deleteOrders(String status, LocalDateTime before) {
+        if (status == null && before == null) {
+            throw new IllegalArgumentException("A status or before filter is required");
+        }
+        long deleted = 0;
+        int chunks = 0;
+        long afterOrderId = CursorPage.FIRST;
+        while (true) {
+            long after = afterOrderId;
+            List<StatusSnapshot> orders = transactionTemplate.execute(tx -> {
+                List<StatusSnapshot> matched = orderHeaderRepository.findForDelete(after, status, before,
+                        Limit.of(chunkSize));
+                delete(matched);
+                return matched;
+            });
+            if (orders.isEmpty()) {
+                break;
+            }
+            deleted += orders.size();
+            chunks++;
+            if (orders.size() < chunkSize) {
+                break;
+            }
+            afterOrderId = orders.get(orders.size() - 1).getOrderId();
+        }
+        return new OrderPurgeResult(deleted, chunks);
+    }
+
+    private int deleteChunk(Supplier<List<StatusSnapshot>> lockOrders) {
+        Integer deleted = transactionTemplate.execute(tx -> delete(lockOrders.get()));
+        return deleted == null ? 0 : deleted;
+    }
+
+    // Runs inside the chunk's transaction; counters and cache entries follow once it commits
+    private int delete(List<StatusSnapshot> orders) {
+        if (orders.isEmpty()) {
+            return 0;
+        }
+        int deleted = orderUpdateRepository.deleteOrders(orders.stream().map(StatusSnapshot::getOrderId).toList());
+        for (StatusSnapshot order : orders) {
+            statusCounters.record(order.getTenantId(), order.getOrderStatus(), -1);
+            orderCache.invalidate(order.getTenantId(), order.getOrderId());
+        }
+        return deleted;
+    }
+}
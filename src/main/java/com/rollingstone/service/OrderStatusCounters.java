@@ -0,0 +1,130 @@
+package com.rollingstone.service;
+
+import com.rollingstone.security.TenantIdentifierResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// In-memory order counts per tenant and status, so GET /api/orders/stats never scans order_header.
+// Writes record +1/-1 deltas (OrderStatusListener) that are applied once their transaction commits; a rolled
+// back write leaves the counts alone. A periodic GROUP BY (served by the tenant/status index) replaces the
+// counts, correcting drift from writes made elsewhere (other nodes, SQL run by hand).
+@Component
+public class OrderStatusCounters {
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Map<String, Map<String, AtomicLong>> counts = new ConcurrentHashMap<>();
+    // Deltas applied while a reconciliation query runs, replayed onto its result. A write committing just
+    // before the query may be counted twice; the next reconciliation corrects it.
+    private Map<Delta, Long> duringReconcile;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public OrderStatusCounters(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Counted after the current transaction commits, or at once outside a transaction
+    public void record(String tenantId, String status, long delta) {
+        Delta key = new Delta(tenantId, status);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(Map.of(key, delta));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Map<Delta, Long> pending = (Map<Delta, Long>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Map<Delta, Long> deltas = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(this, deltas);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(deltas);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(OrderStatusCounters.this);
+                }
+            });
+            pending = deltas;
+        }
+        pending.merge(key, delta, Long::sum);
+    }
+
+    // The root tenant gets every tenant's orders added up
+    public OrderStatusCounts countsFor(String tenantId) {
+        Map<String, Long> byStatus = new TreeMap<>();
+        counts.forEach((tenant, statuses) -> {
+            if (tenant.equals(tenantId) || TenantIdentifierResolver.ROOT.equals(tenantId)) {
+                statuses.forEach((status, count) -> byStatus.merge(status, count.get(), Long::sum));
+            }
+        });
+        byStatus.values().removeIf(count -> count == 0);
+        long total = byStatus.values().stream().mapToLong(Long::longValue).sum();
+        return new OrderStatusCounts(tenantId, total, byStatus);
+    }
+
+    @Scheduled(fixedDelayString = "${api.order-stats.reconcile-interval:5m}")
+    public void reconcile() {
+        lock.writeLock().lock();
+        try {
+            duringReconcile = new ConcurrentHashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Map<String, Map<String, AtomicLong>> fresh = new ConcurrentHashMap<>();
+        boolean complete = false;
+        try {
+            jdbcTemplate.query("select tenant_id, order_status, count(*) from order_header"
+                    + " group by tenant_id, order_status", row -> {
+                fresh.computeIfAbsent(row.getString(1), tenant -> new ConcurrentHashMap<>())
+                        .put(row.getString(2), new AtomicLong(row.getLong(3)));
+            });
+            complete = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                // A failed query leaves the incrementally maintained counts in place
+                if (complete) {
+                    counts = fresh;
+                    duringReconcile.forEach(this::add);
+                }
+                duringReconcile = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void apply(Map<Delta, Long> deltas) {
+        lock.readLock().lock();
+        try {
+            deltas.forEach(this::add);
+            Map<Delta, Long> replay = duringReconcile;
+            if (replay != null) {
+                deltas.forEach((key, delta) -> replay.merge(key, delta, Long::sum));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(Delta key, long delta) {
+        counts.computeIfAbsent(key.tenantId(), tenant -> new ConcurrentHashMap<>())
+                .computeIfAbsent(key.status(), status -> new AtomicLong())
+                .addAndGet(delta);
+    }
+
+    private record Delta(String tenantId, String status) {
+    }
+}
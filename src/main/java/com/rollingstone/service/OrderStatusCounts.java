@@ -0,0 +1,7 @@
+package com.rollingstone.service;
+
+import java.util.Map;
+
+// Order counts for one tenant (or every tenant, for the root tenant), by status
+public record OrderStatusCounts(String tenantId, long total, Map<String, Long> byStatus) {
+}
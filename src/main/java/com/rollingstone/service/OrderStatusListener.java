@@ -0,0 +1,49 @@
+package com.rollingstone.service;
+
+import com.rollingstone.model.OrderHeader;
+import com.rollingstone.security.TenantIdentifierResolver;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.stereotype.Component;
+
+// Entity listener on OrderHeader (a Spring bean, so Hibernate gets this instance) turning inserts, status
+// changes and deletes into OrderStatusCounters deltas. Bulk JPQL/SQL statements bypass it and must record
+// their own deltas.
+@Component
+public class OrderStatusListener {
+
+    private final OrderStatusCounters counters;
+    private final TenantIdentifierResolver tenantResolver;
+
+    public OrderStatusListener(OrderStatusCounters counters, TenantIdentifierResolver tenantResolver) {
+        this.counters = counters;
+        this.tenantResolver = tenantResolver;
+    }
+
+    @PostPersist
+    public void created(OrderHeader order) {
+        counters.record(tenantOf(order), order.getOrderStatus(), 1);
+    }
+
+    // Runs before OrderHeader's own callback, so the persisted status is still the one read from the database
+    @PostUpdate
+    public void updated(OrderHeader order) {
+        String before = order.getPersistedStatus();
+        if (before != null && !before.equals(order.getOrderStatus())) {
+            counters.record(tenantOf(order), before, -1);
+            counters.record(tenantOf(order), order.getOrderStatus(), 1);
+        }
+    }
+
+    @PostRemove
+    public void deleted(OrderHeader order) {
+        counters.record(tenantOf(order), order.getPersistedStatus(), -1);
+    }
+
+    // merge() copies a detached order's null tenantId onto the managed one; the row keeps its tenant, which is
+    // the session's (Hibernate only lets a tenant write its own rows)
+    private String tenantOf(OrderHeader order) {
+        return order.getTenantId() != null ? order.getTenantId() : tenantResolver.resolveCurrentTenantIdentifier();
+    }
+}
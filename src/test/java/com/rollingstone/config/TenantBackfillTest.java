@@ -0,0 +1,72 @@
+package com.rollingstone.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static com.rollingstone.service.OrderTestSupport.deleteOrders;
+import static com.rollingstone.service.OrderTestSupport.insertLine;
+import static com.rollingstone.service.OrderTestSupport.insertOrder;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+// Rows from before tenant_id existed carry '' (MySQL's default when ddl-auto adds the NOT NULL column)
+@SpringBootTest
+@ActiveProfiles("test")
+class TenantBackfillTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void seed() {
+        deleteOrders(jdbcTemplate);
+        insertOrder(jdbcTemplate, "", 6001, "NEW");
+        insertLine(jdbcTemplate, "", 6101, 6001, 1);
+        insertOrder(jdbcTemplate, "tenant02", 6002, "NEW");
+        insertLine(jdbcTemplate, "", 6102, 6002, 1);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        deleteOrders(jdbcTemplate);
+    }
+
+    @Test
+    void rowsWithoutATenantFailStartupUnlessATenantIsGiven() {
+        assertThatIllegalStateException().isThrownBy(() -> backfill("").afterPropertiesSet())
+                .withMessageContaining("1 orders and 2 order lines");
+
+        assertThat(jdbcTemplate.queryForObject("select count(*) from order_header where tenant_id = ''",
+                Integer.class)).isEqualTo(1);
+    }
+
+    @Test
+    void ordersGoToTheGivenTenantAndLinesFollowTheirOrder() {
+        backfill("tenant01").afterPropertiesSet();
+
+        assertThat(tenantOf("order_header", "order_id", 6001)).isEqualTo("tenant01");
+        assertThat(tenantOf("order_header", "order_id", 6002)).isEqualTo("tenant02");
+        assertThat(tenantOf("order_line", "order_line_id", 6101)).isEqualTo("tenant01");
+        assertThat(tenantOf("order_line", "order_line_id", 6102)).isEqualTo("tenant02");
+        // Nothing left to do on the next start
+        backfill("").afterPropertiesSet();
+    }
+
+    private TenantBackfill backfill(String tenantId) {
+        return new TenantBackfill(jdbcTemplate, entityManagerFactory, tenantId);
+    }
+
+    private String tenantOf(String table, String idColumn, long id) {
+        return jdbcTemplate.queryForObject("select tenant_id from " + table + " where " + idColumn + " = ?",
+                String.class, id);
+    }
+}
@@ -0,0 +1,153 @@
+package com.rollingstone.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Set;
+
+import static com.rollingstone.service.OrderTestSupport.TENANT01;
+import static com.rollingstone.service.OrderTestSupport.TENANT02;
+import static com.rollingstone.service.OrderTestSupport.clearedStatistics;
+import static com.rollingstone.service.OrderTestSupport.deleteOrders;
+import static com.rollingstone.service.OrderTestSupport.insertLine;
+import static com.rollingstone.service.OrderTestSupport.insertOrder;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Order resources carry ETags from the order's version; conditional GETs are answered without loading the order
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class OrderETagTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void seed() {
+        deleteOrders(jdbcTemplate);
+        insertOrder(jdbcTemplate, "tenant01", 3001, "NEW");
+        for (int line = 1; line <= 2; line++) {
+            insertLine(jdbcTemplate, "tenant01", 3100 + line, 3001, line);
+        }
+        statistics = clearedStatistics(entityManagerFactory);
+    }
+
+    @Test
+    void matchingIfNoneMatchIsAnsweredFromTheVersionAlone() throws Exception {
+        String etag = etagOf("/api/orders/3001");
+        assertThat(etag).isEqualTo("\"order-3001-0\"");
+        statistics.clear();
+
+        mockMvc.perform(get("/api/orders/3001").with(TENANT01).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void eachRepresentationHasItsOwnTag() throws Exception {
+        String withLines = etagOf("/api/orders/3001");
+        String headerOnly = etagOf("/api/orders/3001?lines=false");
+        String lines = etagOf("/api/order-lines/order/3001");
+        String someFields = etagOf("/api/order-lines/order/3001?fields=quantity");
+
+        assertThat(Set.of(withLines, headerOnly, lines, someFields)).hasSize(4);
+        mockMvc.perform(get("/api/orders/3001?lines=false").with(TENANT01).header(HttpHeaders.IF_NONE_MATCH, withLines))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/order-lines/order/3001").with(TENANT01).header(HttpHeaders.IF_NONE_MATCH, lines))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void lineWritesChangeTheOrdersTags() throws Exception {
+        String order = etagOf("/api/orders/3001");
+        String lines = etagOf("/api/order-lines/order/3001");
+
+        mockMvc.perform(put("/api/order-lines/3101").with(TENANT01).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"lineNumber\":1,\"productId\":\"P1\",\"quantity\":5,\"uom\":\"EA\","
+                                + "\"unitPrice\":10,\"itemTotal\":50}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/orders/3001").with(TENANT01).header(HttpHeaders.IF_NONE_MATCH, order))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orderLines[?(@.orderLineId == 3101)].quantity").value(5.0));
+        String changedLines = mockMvc.perform(get("/api/order-lines/order/3001").with(TENANT01)
+                        .header(HttpHeaders.IF_NONE_MATCH, lines))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(delete("/api/order-lines/3102").with(TENANT01)).andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/order-lines/order/3001").with(TENANT01).header(HttpHeaders.IF_NONE_MATCH, changedLines))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    void putWithIfMatchOnlyAppliesToTheTaggedVersion() throws Exception {
+        String etag = etagOf("/api/orders/3001");
+
+        String updated = mockMvc.perform(put("/api/orders/3001").with(TENANT01).header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON).content(order("PAID")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertThat(updated).isNotEqualTo(etag);
+        mockMvc.perform(put("/api/orders/3001").with(TENANT01).header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON).content(order("CANCELLED")))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(get("/api/orders/3001").with(TENANT01).header(HttpHeaders.IF_NONE_MATCH, updated))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/orders/3001?lines=false").with(TENANT01))
+                .andExpect(jsonPath("$.orderStatus").value("PAID"));
+    }
+
+    @Test
+    void otherTenantsOrdersAreNotFoundEvenConditionally() throws Exception {
+        String etag = etagOf("/api/orders/3001");
+
+        mockMvc.perform(get("/api/orders/3001").with(TENANT02).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotFound());
+    }
+
+    private String etagOf(String uri) throws Exception {
+        return mockMvc.perform(get(uri).with(TENANT01))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    private static String order(String status) {
+        return "{\"orderNumber\":\"ORD-3001\",\"customerNumber\":\"C1\",\"orderDate\":\"01-01-2024 12:00:00\","
+                + "\"orderStatus\":\"" + status + "\",\"orderTotal\":20,\"currency\":\"USD\"}";
+    }
+}
@@ -0,0 +1,87 @@
+package com.rollingstone.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static com.rollingstone.service.OrderTestSupport.TENANT01;
+import static com.rollingstone.service.OrderTestSupport.clearedStatistics;
+import static com.rollingstone.service.OrderTestSupport.deleteOrders;
+import static com.rollingstone.service.OrderTestSupport.insertLine;
+import static com.rollingstone.service.OrderTestSupport.insertOrder;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Statements issued per request stay fixed however many orders and lines are on the page
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class OrderFetchPlanTest {
+
+    private static final int ORDERS = 20;
+    private static final int LINES_PER_ORDER = 3;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void seed() {
+        deleteOrders(jdbcTemplate);
+        for (int order = 1; order <= ORDERS; order++) {
+            insertOrder(jdbcTemplate, "tenant01", order, "NEW");
+            for (int line = 1; line <= LINES_PER_ORDER; line++) {
+                insertLine(jdbcTemplate, "tenant01", order * LINES_PER_ORDER + line, order, line);
+            }
+        }
+        statistics = clearedStatistics(entityManagerFactory);
+    }
+
+    @Test
+    void headerOnlyPageIsOneQuery() throws Exception {
+        request("/api/orders?limit=" + ORDERS)
+                .andExpect(jsonPath("$.items", hasSize(ORDERS)))
+                .andExpect(jsonPath("$.items[0].orderLines").doesNotExist());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void pageWithLinesIsTwoQueries() throws Exception {
+        request("/api/orders/customer/C1?lines=true&limit=" + ORDERS)
+                .andExpect(jsonPath("$.items", hasSize(ORDERS)))
+                .andExpect(jsonPath("$.items[" + (ORDERS - 1) + "].orderLines", hasSize(LINES_PER_ORDER)));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void singleOrderWithLinesIsOneQuery() throws Exception {
+        request("/api/orders/1")
+                .andExpect(jsonPath("$.orderLines", hasSize(LINES_PER_ORDER)));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private ResultActions request(String uri) throws Exception {
+        return mockMvc.perform(get(uri).with(TENANT01)).andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,148 @@
+package com.rollingstone.controller;
+
+import com.rollingstone.service.OrderStatusCounters;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static com.rollingstone.service.OrderTestSupport.TENANT01;
+import static com.rollingstone.service.OrderTestSupport.TENANT02;
+import static com.rollingstone.service.OrderTestSupport.clearedStatistics;
+import static com.rollingstone.service.OrderTestSupport.deleteOrders;
+import static com.rollingstone.service.OrderTestSupport.insertLine;
+import static com.rollingstone.service.OrderTestSupport.insertOrder;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// PATCH writes only what changed, as targeted statements guarded by the order's version
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class OrderPatchTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OrderStatusCounters counters;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void seed() {
+        deleteOrders(jdbcTemplate);
+        insertOrder(jdbcTemplate, "tenant01", 4001, "NEW");
+        for (int line = 1; line <= 3; line++) {
+            insertLine(jdbcTemplate, "tenant01", 4100 + line, 4001, line);
+        }
+        counters.reconcile();
+        statistics = clearedStatistics(entityManagerFactory);
+    }
+
+    @Test
+    void headerChangesAreOneUpdate() throws Exception {
+        patchOrder("\"order-4001-0\"", "{\"shippingMethod\":\"AIR\",\"orderDate\":\"04-02-2024 10:00:00\"}")
+                .andExpect(status().isNoContent())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"order-4001-1\""));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        mockMvc.perform(get("/api/orders/4001?lines=false").with(TENANT01))
+                .andExpect(jsonPath("$.shippingMethod").value("AIR"))
+                .andExpect(jsonPath("$.orderDate").value("04-02-2024 10:00:00"))
+                .andExpect(jsonPath("$.orderNumber").value("ORD-4001"))
+                .andExpect(jsonPath("$.version").value(1));
+    }
+
+    @Test
+    void statusChangesMoveTheCounters() throws Exception {
+        patchOrder(null, "{\"version\":0,\"orderStatus\":\"PAID\"}")
+                .andExpect(status().isNoContent());
+
+        // the status as of the patched version, then the update
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        mockMvc.perform(get("/api/orders/stats").with(TENANT01))
+                .andExpect(jsonPath("$.byStatus.PAID").value(1))
+                .andExpect(jsonPath("$.byStatus.NEW").doesNotExist());
+    }
+
+    @Test
+    void linesAreDiffedNotReplaced() throws Exception {
+        patchOrder("\"order-4001-0\"", "{\"orderLines\":[{\"orderLineId\":4101,\"quantity\":4,\"itemTotal\":40},"
+                + "{\"lineNumber\":4,\"productId\":\"P4\",\"quantity\":1,\"uom\":\"EA\",\"unitPrice\":5,\"itemTotal\":5}],"
+                + "\"removedOrderLines\":[4102]}")
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/order-lines/order/4001").with(TENANT01))
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[*].productId", containsInAnyOrder("P1", "P1", "P4")))
+                .andExpect(jsonPath("$[?(@.orderLineId == 4101)].quantity").value(4.0))
+                .andExpect(jsonPath("$[?(@.orderLineId == 4101)].version").value(1))
+                // untouched, so neither rewritten nor reinserted
+                .andExpect(jsonPath("$[?(@.orderLineId == 4103)].version").value(0));
+    }
+
+    @Test
+    void staleOrMissingVersionsAreRejected() throws Exception {
+        patchOrder("\"order-4001-0\"", "{\"orderStatus\":\"PAID\"}").andExpect(status().isNoContent());
+
+        patchOrder("\"order-4001-0\"", "{\"orderStatus\":\"SHIPPED\"}").andExpect(status().isPreconditionFailed());
+        patchOrder("\"order-4001-0\"", "{\"currency\":\"EUR\"}").andExpect(status().isPreconditionFailed());
+        patchOrder(null, "{\"currency\":\"EUR\"}").andExpect(status().isPreconditionRequired());
+        mockMvc.perform(get("/api/orders/4001?lines=false").with(TENANT01))
+                .andExpect(jsonPath("$.orderStatus").value("PAID"))
+                .andExpect(jsonPath("$.currency").value("USD"));
+    }
+
+    @Test
+    void invalidPatchesChangeNothing() throws Exception {
+        patchOrder("\"order-4001-0\"", "{\"tenantId\":\"tenant02\"}").andExpect(status().isBadRequest());
+        patchOrder("\"order-4001-0\"", "{\"orderId\":1}").andExpect(status().isBadRequest());
+        // rolled back after the header update went through
+        patchOrder("\"order-4001-0\"", "{\"currency\":\"EUR\",\"orderLines\":[{\"orderLineId\":999,\"quantity\":2}]}")
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/orders/4001?lines=false").with(TENANT01))
+                .andExpect(jsonPath("$.currency").value("USD"))
+                .andExpect(jsonPath("$.version").value(0));
+    }
+
+    @Test
+    void otherTenantsOrdersAreNotFound() throws Exception {
+        mockMvc.perform(patch("/api/orders/4001").with(TENANT02).header(HttpHeaders.IF_MATCH, "\"order-4001-0\"")
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"currency\":\"EUR\"}"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/orders/4001?lines=false").with(TENANT01))
+                .andExpect(jsonPath("$.currency").value("USD"));
+    }
+
+    private ResultActions patchOrder(String ifMatch, String body) throws Exception {
+        MockHttpServletRequestBuilder request = patch("/api/orders/4001").with(TENANT01).contentType(MediaType.APPLICATION_JSON).content(body);
+        if (ifMatch != null) {
+            request.header(HttpHeaders.IF_MATCH, ifMatch);
+        }
+        return mockMvc.perform(request);
+    }
+}
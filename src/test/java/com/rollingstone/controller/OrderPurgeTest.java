@@ -0,0 +1,128 @@
+package com.rollingstone.controller;
+
+import com.rollingstone.service.OrderStatusCounters;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+
+import static com.rollingstone.service.OrderTestSupport.TENANT01;
+import static com.rollingstone.service.OrderTestSupport.clearedStatistics;
+import static com.rollingstone.service.OrderTestSupport.deleteOrders;
+import static com.rollingstone.service.OrderTestSupport.insertLine;
+import static com.rollingstone.service.OrderTestSupport.insertOrder;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Deletes are set-based statements run a chunk at a time; no order or line is loaded to delete it
+@SpringBootTest(properties = "api.purge.chunk-size=2")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class OrderPurgeTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OrderStatusCounters counters;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void seed() {
+        deleteOrders(jdbcTemplate);
+        // tenant01: 5001-5010, odd ids CANCELLED, placed on consecutive days from 2024-01-01; tenant02: 5011
+        for (int order = 5001; order <= 5011; order++) {
+            String tenantId = order == 5011 ? "tenant02" : "tenant01";
+            insertOrder(jdbcTemplate, tenantId, order, "ORD-" + order, order % 2 == 1 ? "CANCELLED" : "NEW",
+                    LocalDateTime.of(2024, 1, 1, 0, 0).plusDays(order - 5001));
+            for (int line = 1; line <= 2; line++) {
+                insertLine(jdbcTemplate, tenantId, order * 10 + line, order, line);
+            }
+        }
+        counters.reconcile();
+        statistics = clearedStatistics(entityManagerFactory);
+    }
+
+    @Test
+    void singleDeleteIsThreeStatementsAndLoadsNothing() throws Exception {
+        mockMvc.perform(delete("/api/orders/5001").with(TENANT01)).andExpect(status().isNoContent());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(lines(5001)).isZero();
+        mockMvc.perform(get("/api/orders/5001").with(TENANT01)).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/orders/stats").with(TENANT01))
+                .andExpect(jsonPath("$.byStatus.CANCELLED").value(4));
+    }
+
+    @Test
+    void filteredDeletesRunInChunksWithinTheTenant() throws Exception {
+        mockMvc.perform(delete("/api/orders?status=CANCELLED").with(TENANT01))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(5))
+                .andExpect(jsonPath("$.chunks").value(3));
+
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(jdbcTemplate.queryForObject("select count(*) from order_header where order_status = 'CANCELLED'",
+                Integer.class)).isEqualTo(1);
+        assertThat(lines(5003)).isZero();
+        assertThat(lines(5011)).isEqualTo(2);
+        mockMvc.perform(get("/api/orders/stats").with(TENANT01))
+                .andExpect(jsonPath("$.total").value(5))
+                .andExpect(jsonPath("$.byStatus.CANCELLED").doesNotExist());
+    }
+
+    @Test
+    void filtersCombine() throws Exception {
+        // NEW orders placed before 2024-01-05: 5002 and 5004
+        mockMvc.perform(delete("/api/orders?status=NEW&before=2024-01-05T00:00:00").with(TENANT01))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(2));
+
+        mockMvc.perform(get("/api/orders/stats").with(TENANT01))
+                .andExpect(jsonPath("$.byStatus.NEW").value(3))
+                .andExpect(jsonPath("$.byStatus.CANCELLED").value(5));
+    }
+
+    @Test
+    void deletesByIdsSkipOtherTenantsOrders() throws Exception {
+        mockMvc.perform(delete("/api/orders?ids=5002,5004,5006,5011").with(TENANT01))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(3))
+                .andExpect(jsonPath("$.chunks").value(2));
+
+        assertThat(lines(5011)).isEqualTo(2);
+    }
+
+    @Test
+    void unfilteredDeletesAreRejected() throws Exception {
+        mockMvc.perform(delete("/api/orders").with(TENANT01)).andExpect(status().isBadRequest());
+        mockMvc.perform(delete("/api/orders?ids=5002&status=NEW").with(TENANT01)).andExpect(status().isBadRequest());
+
+        assertThat(jdbcTemplate.queryForObject("select count(*) from order_header", Integer.class)).isEqualTo(11);
+    }
+
+    private int lines(long orderId) {
+        Integer lines = jdbcTemplate.queryForObject("select count(*) from order_line where order_id = ?",
+                Integer.class, orderId);
+        return lines == null ? 0 : lines;
+    }
+}
@@ -0,0 +1,113 @@
+package com.rollingstone.controller;
+
+import com.rollingstone.service.OrderStatusCounters;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.JwtRequestPostProcessor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static com.rollingstone.service.OrderTestSupport.TENANT01;
+import static com.rollingstone.service.OrderTestSupport.TENANT02;
+import static com.rollingstone.service.OrderTestSupport.deleteOrders;
+import static com.rollingstone.service.OrderTestSupport.insertOrder;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Status counts come from counters that follow every committed write, seeded and corrected by reconcile()
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class OrderStatsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OrderStatusCounters counters;
+
+    @BeforeEach
+    void seed() {
+        deleteOrders(jdbcTemplate);
+        insertOrder(jdbcTemplate, "tenant01", 2001, "NEW");
+        insertOrder(jdbcTemplate, "tenant01", 2002, "NEW");
+        insertOrder(jdbcTemplate, "tenant01", 2003, "PAID");
+        insertOrder(jdbcTemplate, "tenant02", 2004, "NEW");
+        counters.reconcile();
+    }
+
+    @Test
+    void reconciledCountsArePerTenant() throws Exception {
+        stats(TENANT01)
+                .andExpect(jsonPath("$.tenantId").value("tenant01"))
+                .andExpect(jsonPath("$.total").value(3))
+                .andExpect(jsonPath("$.byStatus.NEW").value(2))
+                .andExpect(jsonPath("$.byStatus.PAID").value(1));
+        stats(TENANT02)
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.byStatus.NEW").value(1));
+    }
+
+    @Test
+    void createsStatusChangesAndDeletesMoveTheCounters() throws Exception {
+        mockMvc.perform(post("/api/orders").with(TENANT01).contentType(MediaType.APPLICATION_JSON)
+                        .content(order("ORD-NEW", "NEW")))
+                .andExpect(status().isOk());
+        mockMvc.perform(put("/api/orders/2001").with(TENANT01).contentType(MediaType.APPLICATION_JSON)
+                        .content(order("ORD-2001", "SHIPPED")))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/api/orders/2003").with(TENANT01))
+                .andExpect(status().isNoContent());
+
+        stats(TENANT01)
+                .andExpect(jsonPath("$.total").value(3))
+                .andExpect(jsonPath("$.byStatus.NEW").value(2))
+                .andExpect(jsonPath("$.byStatus.SHIPPED").value(1))
+                .andExpect(jsonPath("$.byStatus.PAID").doesNotExist());
+        stats(TENANT02).andExpect(jsonPath("$.total").value(1));
+    }
+
+    @Test
+    void rolledBackWritesAreNotCounted() throws Exception {
+        // The chunk fails on the duplicate and is rolled back; only the replayed good order commits
+        mockMvc.perform(post("/api/orders/batch").with(TENANT01).contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + order("ORD-A", "NEW") + "," + order("ORD-A", "NEW") + "]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[1].error").isNotEmpty());
+
+        stats(TENANT01).andExpect(jsonPath("$.byStatus.NEW").value(3));
+    }
+
+    @Test
+    void reconcileCorrectsDrift() throws Exception {
+        jdbcTemplate.update("update order_header set order_status = 'CANCELLED' where order_id = 2001");
+
+        counters.reconcile();
+
+        stats(TENANT01)
+                .andExpect(jsonPath("$.byStatus.NEW").value(1))
+                .andExpect(jsonPath("$.byStatus.CANCELLED").value(1));
+    }
+
+    private ResultActions stats(JwtRequestPostProcessor tenant) throws Exception {
+        return mockMvc.perform(get("/api/orders/stats").with(tenant)).andExpect(status().isOk());
+    }
+
+    private static String order(String orderNumber, String status) {
+        return "{\"orderNumber\":\"" + orderNumber + "\",\"customerNumber\":\"C1\",\"orderDate\":\"01-01-2024 12:00:00\","
+                + "\"orderStatus\":\"" + status + "\",\"orderTotal\":10,\"currency\":\"USD\"}";
+    }
+}
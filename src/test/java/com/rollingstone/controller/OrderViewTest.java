@@ -0,0 +1,108 @@
+package com.rollingstone.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+
+import static com.rollingstone.service.OrderTestSupport.TENANT01;
+import static com.rollingstone.service.OrderTestSupport.clearedStatistics;
+import static com.rollingstone.service.OrderTestSupport.deleteOrders;
+import static com.rollingstone.service.OrderTestSupport.insertLine;
+import static com.rollingstone.service.OrderTestSupport.insertOrder;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Read endpoints answer from view records: no entity is loaded, and fields= narrows the columns written
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class OrderViewTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void seed() {
+        deleteOrders(jdbcTemplate);
+        for (int order = 1; order <= 3; order++) {
+            insertOrder(jdbcTemplate, "tenant01", order, "ORD-" + order, "NEW", LocalDateTime.of(2024, 3, 1, 8, 30));
+            insertLine(jdbcTemplate, "tenant01", order, order, 1);
+        }
+        statistics = clearedStatistics(entityManagerFactory);
+    }
+
+    @Test
+    void listWritesEveryHeaderColumnWithoutLoadingEntities() throws Exception {
+        mockMvc.perform(get("/api/orders/customer/C1").with(TENANT01))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(3)))
+                .andExpect(jsonPath("$.items[0].orderNumber").value("ORD-1"))
+                .andExpect(jsonPath("$.items[0].orderDate").value("03-01-2024 08:30:00"))
+                .andExpect(jsonPath("$.items[0].shippingMethod").isEmpty())
+                .andExpect(jsonPath("$.items[0].orderLines").doesNotExist());
+
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void fieldsSelectsColumnsAndKeepsTheId() throws Exception {
+        mockMvc.perform(get("/api/orders?limit=2&fields=orderNumber,orderTotal").with(TENANT01))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[1].orderId").value(2))
+                .andExpect(jsonPath("$.items[1].orderNumber").value("ORD-2"))
+                .andExpect(jsonPath("$.items[1].orderTotal").value(10))
+                .andExpect(jsonPath("$.items[1].customerNumber").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").isNotEmpty());
+
+        mockMvc.perform(get("/api/order-lines/order/2?fields=productId").with(TENANT01))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].orderLineId").value(2))
+                .andExpect(jsonPath("$[0].productId").value("P1"))
+                .andExpect(jsonPath("$[0].orderId").doesNotExist());
+
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void singleViewsCarryTheirOwnerId() throws Exception {
+        mockMvc.perform(get("/api/order-lines/3").with(TENANT01))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orderId").value(3));
+        mockMvc.perform(get("/api/orders/3?lines=false").with(TENANT01))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orderNumber").value("ORD-3"));
+
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void unknownOrMisplacedFieldsAreBadRequests() throws Exception {
+        mockMvc.perform(get("/api/orders?fields=orderNumber,password").with(TENANT01))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/orders?lines=true&fields=orderNumber").with(TENANT01))
+                .andExpect(status().isBadRequest());
+    }
+}
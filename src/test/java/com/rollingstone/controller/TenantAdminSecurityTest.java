@@ -0,0 +1,80 @@
+package com.rollingstone.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.JwtRequestPostProcessor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.rollingstone.service.OrderTestSupport.TENANT01_ISSUER;
+import static com.rollingstone.service.OrderTestSupport.TENANT02_ISSUER;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Only the admin role on a token from the operators' issuer may register, move or remove tenants. A tenant's own
+// users cannot touch any of them, not even those its IdP made admins.
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class TenantAdminSecurityTest {
+
+    private static final JwtRequestPostProcessor TENANT01_USER =
+            jwt().jwt(token -> token.issuer(TENANT01_ISSUER))
+                    .authorities(new SimpleGrantedAuthority("ROLE_user"));
+    private static final JwtRequestPostProcessor TENANT01_ADMIN =
+            jwt().jwt(token -> token.issuer(TENANT01_ISSUER))
+                    .authorities(new SimpleGrantedAuthority("ROLE_admin"));
+    // security.admin.issuer in application-test.properties
+    private static final String OPERATOR_ISSUER = "http://0.0.0.0:8080/realms/multitannt-operators";
+    private static final JwtRequestPostProcessor OPERATOR_USER =
+            jwt().jwt(token -> token.issuer(OPERATOR_ISSUER))
+                    .authorities(new SimpleGrantedAuthority("ROLE_user"));
+    private static final JwtRequestPostProcessor OPERATOR_ADMIN =
+            jwt().jwt(token -> token.issuer(OPERATOR_ISSUER))
+                    .authorities(new SimpleGrantedAuthority("ROLE_admin"));
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void tenantUsersAreForbidden() throws Exception {
+        mockMvc.perform(get("/admin/tenants").with(TENANT01_USER)).andExpect(status().isForbidden());
+        mockMvc.perform(post("/admin/tenants/register").with(TENANT01_USER)
+                        .param("tenantId", "intruder").param("issuerUrl", "https://idp.test/intruder"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/admin/tenants/bulk").with(TENANT01_USER).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"intruder\":\"https://idp.test/intruder\"}"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(put("/admin/tenants/tenant02").with(TENANT01_USER)
+                        .param("issuerUrl", "https://idp.test/intruder"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(delete("/admin/tenants/tenant02").with(TENANT01_USER)).andExpect(status().isForbidden());
+    }
+
+    @Test
+    void tenantAdminsAreForbidden() throws Exception {
+        mockMvc.perform(get("/admin/tenants").with(TENANT01_ADMIN)).andExpect(status().isForbidden());
+        mockMvc.perform(put("/admin/tenants/tenant02").with(TENANT01_ADMIN)
+                        .param("issuerUrl", "https://idp.test/intruder"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(delete("/admin/tenants/tenant02").with(TENANT01_ADMIN)).andExpect(status().isForbidden());
+    }
+
+    @Test
+    void onlyOperatorAdminsGetIn() throws Exception {
+        mockMvc.perform(get("/admin/tenants").with(OPERATOR_USER)).andExpect(status().isForbidden());
+
+        mockMvc.perform(get("/admin/tenants").with(OPERATOR_ADMIN))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tenant02").value(TENANT02_ISSUER));
+    }
+}
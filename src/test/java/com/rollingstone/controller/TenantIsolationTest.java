@@ -0,0 +1,100 @@
+package com.rollingstone.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.rollingstone.service.OrderTestSupport.ORDER_DATE;
+import static com.rollingstone.service.OrderTestSupport.TENANT01;
+import static com.rollingstone.service.OrderTestSupport.TENANT02;
+import static com.rollingstone.service.OrderTestSupport.deleteOrders;
+import static com.rollingstone.service.OrderTestSupport.insertOrder;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Orders are stored under the tenant of the caller's issuer and no endpoint reaches another tenant's rows
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class TenantIsolationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        deleteOrders(jdbcTemplate);
+        // Ids clear of the allocator's first block; the same order numbers in both tenants, as uniqueness is per tenant
+        insertOrder(jdbcTemplate, "tenant01", 1001, "ORD-1", "NEW", ORDER_DATE);
+        insertOrder(jdbcTemplate, "tenant01", 1002, "ORD-2", "PAID", ORDER_DATE);
+        insertOrder(jdbcTemplate, "tenant02", 1003, "ORD-1", "NEW", ORDER_DATE);
+        insertOrder(jdbcTemplate, "tenant02", 1004, "ORD-2", "NEW", ORDER_DATE);
+    }
+
+    @Test
+    void listsAndLookupsOnlySeeTheCallersTenant() throws Exception {
+        mockMvc.perform(get("/api/orders").with(TENANT01))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].orderId").value(contains(1001, 1002)));
+        mockMvc.perform(get("/api/orders/status/NEW?lines=true").with(TENANT02))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].orderId").value(1003));
+
+        mockMvc.perform(get("/api/orders/1001").with(TENANT02)).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/orders/1001?lines=false").with(TENANT02)).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/orders/export").with(TENANT02))
+                .andExpect(status().isOk())
+                .andExpect(content().string(not(containsString("\"orderId\":1001"))))
+                .andExpect(content().string(containsString("\"orderId\":1004")));
+    }
+
+    @Test
+    void newOrdersAndTheirLinesTakeTheCallersTenant() throws Exception {
+        mockMvc.perform(post("/api/orders").with(TENANT02).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"orderNumber\":\"ORD-9\",\"customerNumber\":\"C9\",\"orderDate\":\"01-01-2024 12:00:00\","
+                                + "\"orderStatus\":\"NEW\",\"orderTotal\":10,\"currency\":\"USD\",\"tenantId\":\"tenant01\","
+                                + "\"orderLines\":[{\"lineNumber\":1,\"productId\":\"P1\",\"quantity\":1,\"uom\":\"EA\","
+                                + "\"unitPrice\":10,\"itemTotal\":10}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tenantId").doesNotExist());
+
+        assertThat(jdbcTemplate.queryForObject("select tenant_id from order_header where order_number = 'ORD-9'",
+                String.class)).isEqualTo("tenant02");
+        assertThat(jdbcTemplate.queryForObject("select tenant_id from order_line", String.class)).isEqualTo("tenant02");
+    }
+
+    @Test
+    void deletingAnotherTenantsOrderChangesNothing() throws Exception {
+        mockMvc.perform(delete("/api/orders/1001").with(TENANT02)).andExpect(status().isNoContent());
+
+        assertThat(jdbcTemplate.queryForObject("select count(*) from order_header where order_id = 1001",
+                Integer.class)).isEqualTo(1);
+    }
+
+    @Test
+    void tenantPagesSeekOnTheTenantLedIndexes() {
+        String plan = jdbcTemplate.queryForObject("explain select order_id from order_header"
+                + " where tenant_id = 'tenant02' and order_status = 'NEW' and order_id > 0 order by order_id", String.class);
+
+        assertThat(plan).contains("idx_order_header_tenant_status_order");
+    }
+}
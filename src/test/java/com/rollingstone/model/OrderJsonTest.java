@@ -0,0 +1,124 @@
+package com.rollingstone.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.introspect.AnnotatedClass;
+import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
+import com.rollingstone.config.RestLessConfig;
+import org.hibernate.collection.spi.PersistentBag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.MappingJacksonValue;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The hand-written serializers must write byte for byte what Jackson's reflective bean serializers wrote
+class OrderJsonTest {
+
+    private final ObjectMapper objectMapper = new RestLessConfig().objectMapper();
+
+    // The same mapper with the class-level @JsonSerialize ignored, i.e. the bean serializers used before
+    private final ObjectMapper reflective = objectMapper.copy().setAnnotationIntrospector(new JacksonAnnotationIntrospector() {
+        @Override
+        public Object findSerializer(Annotated annotated) {
+            return annotated instanceof AnnotatedClass ? null : super.findSerializer(annotated);
+        }
+    });
+
+    @Test
+    void ordersWithLinesMatchTheBeanSerializer() throws Exception {
+        OrderHeader order = order();
+
+        assertThat(objectMapper.writeValueAsString(order)).isEqualTo(reflective.writeValueAsString(order));
+        assertThat(objectMapper.writeValueAsString(order.getOrderLines().get(0)))
+                .isEqualTo(reflective.writeValueAsString(order.getOrderLines().get(0)));
+        assertThat(objectMapper.writeValueAsString(new OrderHeader()))
+                .isEqualTo(reflective.writeValueAsString(new OrderHeader()));
+    }
+
+    @Test
+    void unfetchedLinesAreWrittenAsNull() throws Exception {
+        OrderHeader order = order();
+        order.setOrderLines(new PersistentBag<>());
+
+        String json = objectMapper.writeValueAsString(order);
+
+        assertThat(json).isEqualTo(reflective.writeValueAsString(order)).contains("\"orderLines\":null");
+    }
+
+    @Test
+    void linesCanBeLeftOut() throws Exception {
+        JsonNode json = objectMapper.readTree(objectMapper.writerFor(OrderHeader.class)
+                .withAttribute(OrderJson.WITHOUT_ORDER_LINES, Boolean.TRUE)
+                .writeValueAsString(order()));
+
+        assertThat(json.has("orderLines")).isFalse();
+        assertThat(json.get("orderNumber").asText()).isEqualTo("ORD-1");
+    }
+
+    @Test
+    void viewsMatchTheBeanSerializer() throws Exception {
+        List<Object> views = List.of(headerView(), lineView(), new OrderLineView(1L, 2L, null, null, null, null,
+                null, null, null, null, null, null, null, null, null, null, 0L));
+
+        assertThat(objectMapper.writeValueAsString(views)).isEqualTo(reflective.writeValueAsString(views));
+    }
+
+    @Test
+    void viewsWriteOnlySelectedFields() throws Exception {
+        MappingJacksonValue body = FieldSelection.parse("orderStatus,orderDate", OrderHeaderView.class)
+                .apply(List.of(headerView()));
+
+        String json = objectMapper.writer(body.getFilters()).writeValueAsString(body.getValue());
+
+        assertThat(json).isEqualTo("[{\"orderId\":7,\"orderDate\":\"03-01-2024 08:30:05\",\"orderStatus\":\"NEW\"}]");
+    }
+
+    private static OrderHeader order() {
+        OrderHeader order = new OrderHeader();
+        order.setOrderId(7L);
+        order.setVersion(3L);
+        order.setOrderNumber("ORD-1");
+        order.setCustomerNumber("C \"1\"\n");
+        order.setOrderDate(LocalDateTime.of(2024, 3, 1, 8, 30, 5, 123_000_000));
+        order.setOrderStatus("NEW");
+        order.setOrderTotal(new BigDecimal("1E+3"));
+        order.setCurrency("USD");
+        order.setBillingAddress("1 Main St, Zürich");
+        order.setCreatedAt(LocalDateTime.of(12345, 12, 31, 23, 59, 59));
+        order.setUpdatedAt(LocalDateTime.of(999, 1, 2, 3, 4, 5));
+        List<OrderLine> lines = new ArrayList<>();
+        for (int i = 1; i <= 2; i++) {
+            OrderLine line = new OrderLine();
+            line.setOrderLineId(70L + i);
+            line.setVersion(0L);
+            line.setOrderHeader(order);
+            line.setLineNumber(i);
+            line.setProductId("P" + i);
+            line.setQuantity(new BigDecimal("2.500"));
+            line.setUnitPrice(new BigDecimal("0.10"));
+            line.setItemTotal(new BigDecimal("0.25"));
+            line.setCreatedAt(LocalDateTime.of(2024, 1, 1, 0, 0));
+            lines.add(line);
+        }
+        order.setOrderLines(lines);
+        return order;
+    }
+
+    private static OrderHeaderView headerView() {
+        return new OrderHeaderView(7L, "ORD-1", "C1", LocalDateTime.of(2024, 3, 1, 8, 30, 5), "NEW",
+                new BigDecimal("10.00"), "USD", null, null, null, "CARD", "loader",
+                LocalDateTime.of(2024, 3, 1, 8, 30), null, null, 2L);
+    }
+
+    private static OrderLineView lineView() {
+        return new OrderLineView(71L, 7L, 1, "P1", "Widget", BigDecimal.ONE, "EA", BigDecimal.TEN,
+                BigDecimal.TEN, "OPEN", BigDecimal.ZERO, new BigDecimal("0.83"), "loader",
+                LocalDateTime.of(2024, 3, 1, 8, 30), null, null, 1L);
+    }
+}
@@ -0,0 +1,65 @@
+package com.rollingstone.security;
+
+import com.rollingstone.config.AuthoritiesProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClaimPathAuthoritiesConverterTest {
+
+    private final DynamicIssuerRegistry registry = new DynamicIssuerRegistry();
+
+    @Test
+    void readsNestedRealmRolesByDefault() {
+        ClaimPathAuthoritiesConverter converter = converter(new AuthoritiesProperties());
+
+        Collection<GrantedAuthority> authorities = converter.convert(jwt("https://idp/realm-1", List.of("admin", "user")));
+
+        assertThat(AuthorityUtils.authorityListToSet(authorities)).containsExactly("ROLE_admin", "ROLE_user");
+    }
+
+    @Test
+    void sameRoleSetSharesOneAuthorityCollection() {
+        ClaimPathAuthoritiesConverter converter = converter(new AuthoritiesProperties());
+
+        Collection<GrantedAuthority> first = converter.convert(jwt("https://idp/realm-1", List.of("admin", "user")));
+        Collection<GrantedAuthority> second = converter.convert(jwt("https://idp/realm-1", List.of("user", "admin")));
+
+        assertThat(second).isSameAs(first);
+        assertThat(converter.convert(jwt("https://idp/realm-1", List.of()))).isEmpty();
+    }
+
+    @Test
+    void tenantMappingReplacesDefaultPaths() {
+        registry.register("tenant01", "https://idp/realm-1");
+        AuthoritiesProperties properties = new AuthoritiesProperties();
+        properties.setTenants(Map.of("tenant01", List.of("realm_access.roles", "resource_access.orders-api.roles")));
+        ClaimPathAuthoritiesConverter converter = converter(properties);
+
+        Collection<GrantedAuthority> tenant = converter.convert(jwt("https://idp/realm-1", List.of("user")));
+        Collection<GrantedAuthority> other = converter.convert(jwt("https://idp/realm-2", List.of("user")));
+
+        assertThat(AuthorityUtils.authorityListToSet(tenant)).containsExactly("ROLE_user", "ROLE_orders.write");
+        assertThat(AuthorityUtils.authorityListToSet(other)).containsExactly("ROLE_user");
+    }
+
+    private ClaimPathAuthoritiesConverter converter(AuthoritiesProperties properties) {
+        return new ClaimPathAuthoritiesConverter(properties, registry);
+    }
+
+    private static Jwt jwt(String issuer, List<String> realmRoles) {
+        return Jwt.withTokenValue("token")
+                .header("alg", "RS256")
+                .issuer(issuer)
+                .claim("realm_access", Map.of("roles", realmRoles))
+                .claim("resource_access", Map.of("orders-api", Map.of("roles", List.of("orders.write"))))
+                .build();
+    }
+}
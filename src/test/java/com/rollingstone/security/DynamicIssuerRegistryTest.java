@@ -0,0 +1,81 @@
+package com.rollingstone.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DynamicIssuerRegistryTest {
+
+    private final DynamicIssuerRegistry registry = new DynamicIssuerRegistry();
+
+    @Test
+    void resolvesTenantFromIssuer() {
+        registry.initializeWithStaticIssuers(Map.of("tenant01", "https://idp/realm-1", "tenant02", "https://idp/realm-2"));
+
+        assertThat(registry.resolveTenant("https://idp/realm-2")).isEqualTo("tenant02");
+        assertThat(registry.resolveIssuer("https://idp/realm-1")).isEqualTo("https://idp/realm-1");
+        assertThatIllegalArgumentException().isThrownBy(() -> registry.resolveIssuer("https://idp/unknown"));
+    }
+
+    @Test
+    void reindexesWhenTenantChangesIssuer() {
+        List<String> changes = new ArrayList<>();
+        registry.addListener((tenantId, previousIssuer, issuer) -> changes.add(tenantId + ":" + previousIssuer + "->" + issuer));
+
+        registry.register("tenant01", "https://idp/realm-1");
+        registry.register("tenant01", "https://idp/realm-1");
+        registry.register("tenant01", "https://idp/realm-9");
+
+        assertThat(registry.isRegistered("https://idp/realm-1")).isFalse();
+        assertThat(registry.resolveTenant("https://idp/realm-9")).isEqualTo("tenant01");
+        assertThat(changes).containsExactly("tenant01:null->https://idp/realm-1",
+                "tenant01:https://idp/realm-1->https://idp/realm-9");
+    }
+
+    @Test
+    void rejectsIssuerOwnedByAnotherTenant() {
+        registry.register("tenant01", "https://idp/realm-1");
+
+        assertThatIllegalArgumentException().isThrownBy(() -> registry.register("tenant02", "https://idp/realm-1"));
+        assertThat(registry.getAllIssuers()).containsOnlyKeys("tenant01");
+    }
+
+    @Test
+    void deregisterAndUpdateNotifyListeners() {
+        List<String> changes = new ArrayList<>();
+        registry.register("tenant01", "https://idp/realm-1");
+        registry.addListener((tenantId, previousIssuer, issuer) -> changes.add(tenantId + ":" + previousIssuer + "->" + issuer));
+
+        registry.update("tenant01", "https://idp/realm-2");
+        assertThat(registry.deregister("tenant01")).isEqualTo("https://idp/realm-2");
+
+        assertThat(registry.isRegistered("https://idp/realm-2")).isFalse();
+        assertThat(registry.getAllIssuers()).isEmpty();
+        assertThat(changes).containsExactly("tenant01:https://idp/realm-1->https://idp/realm-2",
+                "tenant01:https://idp/realm-2->null");
+        assertThatThrownBy(() -> registry.update("tenant01", "https://idp/realm-3"))
+                .isInstanceOf(NoSuchElementException.class);
+        assertThatThrownBy(() -> registry.deregister("tenant01")).isInstanceOf(NoSuchElementException.class);
+    }
+
+    @Test
+    void refusesTheRootTenantId() {
+        Map<String, String> root = new HashMap<>();
+        root.put(TenantIdentifierResolver.ROOT, "https://idp/attacker");
+
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> registry.register(TenantIdentifierResolver.ROOT, "https://idp/attacker"));
+        assertThatIllegalArgumentException().isThrownBy(() -> registry.registerAll(root));
+        assertThatIllegalArgumentException().isThrownBy(() -> registry.applyChanges(root));
+        assertThatIllegalArgumentException().isThrownBy(() -> registry.register(" tenant01", "https://idp/realm-1"));
+        assertThat(registry.isRegistered("https://idp/attacker")).isFalse();
+    }
+}
@@ -0,0 +1,135 @@
+package com.rollingstone.security;
+
+import com.rollingstone.config.DecoderCacheProperties;
+import com.rollingstone.config.JwksProperties;
+import com.rollingstone.config.TenantMetricsProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class MultiTenantDynamicJwtDecoderFactoryTest {
+
+    private StubOidcServer idp;
+    private ExecutorService executor;
+    private DynamicIssuerRegistry registry;
+    private TenantJwkSourceFactory jwkSources;
+    private final DecoderCacheProperties cacheProperties = new DecoderCacheProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        idp = StubOidcServer.start();
+        executor = Executors.newFixedThreadPool(8);
+        registry = new DynamicIssuerRegistry();
+        jwkSources = new TenantJwkSourceFactory(new JwksProperties(), meterRegistry, executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        idp.close();
+    }
+
+    @Test
+    void concurrentColdRequestsShareOneDiscoveryCall() throws Exception {
+        String issuer = idp.issuer("acme");
+        idp.setDiscoveryDelay(Duration.ofMillis(300));
+        // registered before the factory listens, so nothing is prewarmed and the first requests are cold
+        registry.register("acme", issuer);
+        MultiTenantDynamicJwtDecoderFactory factory = factory();
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<JwtDecoder>> decoders = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                decoders.add(callers.submit(() -> factory.getDecoder(issuer)));
+            }
+            JwtDecoder first = decoders.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<JwtDecoder> decoder : decoders) {
+                assertThat(decoder.get(5, TimeUnit.SECONDS)).isSameAs(first);
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        assertThat(idp.discoveryRequests()).isEqualTo(1);
+    }
+
+    @Test
+    void registeringTenantPrewarmsDecoderInBackground() throws Exception {
+        MultiTenantDynamicJwtDecoderFactory factory = factory();
+        String issuer = idp.issuer("acme");
+
+        registry.register("acme", issuer);
+        JwtDecoder decoder = factory.prewarmAll(List.of(issuer)).get(issuer).get(5, TimeUnit.SECONDS);
+
+        assertThat(factory.getDecoder(issuer)).isSameAs(decoder);
+        assertThat(decoder.decode(idp.mint("acme")).getSubject()).isEqualTo("user-acme");
+        assertThat(idp.discoveryRequests()).isEqualTo(1);
+    }
+
+    @Test
+    void deregisteredIssuerIsEvictedAndRejected() throws Exception {
+        MultiTenantDynamicJwtDecoderFactory factory = factory();
+        String issuer = idp.issuer("acme");
+        registry.register("acme", issuer);
+        factory.prewarmAll(List.of(issuer)).get(issuer).get(5, TimeUnit.SECONDS);
+        assertThat(factory.size()).isEqualTo(1);
+
+        registry.deregister("acme");
+
+        assertThat(factory.size()).isZero();
+        assertThatIllegalArgumentException().isThrownBy(() -> factory.getDecoder(issuer));
+    }
+
+    @Test
+    void decoderCacheIsBounded() throws Exception {
+        cacheProperties.setMaximumSize(2);
+        MultiTenantDynamicJwtDecoderFactory factory = factory();
+        for (String realm : List.of("r1", "r2", "r3", "r4")) {
+            registry.register(realm, idp.issuer(realm));
+            factory.getDecoder(idp.issuer(realm));
+        }
+
+        // eviction runs as asynchronous cache maintenance
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (factory.size() > 2 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(factory.size()).isLessThanOrEqualTo(2);
+        assertThat(meterRegistry.get("cache.evictions").tag("cache", "issuerDecoders").functionCounter().count())
+                .isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    void failedDiscoveryIsRetriedOnNextRequest() {
+        String issuer = idp.issuer("acme");
+        registry.initializeWithStaticIssuers(Map.of("acme", issuer));
+        MultiTenantDynamicJwtDecoderFactory factory = factory();
+
+        idp.setAvailable(false);
+        assertThat(factory.prewarm(issuer)).failsWithin(5, TimeUnit.SECONDS);
+
+        idp.setAvailable(true);
+        assertThat(factory.getDecoder(issuer)).isNotNull();
+        assertThat(idp.discoveryRequests()).isEqualTo(2);
+    }
+
+    private MultiTenantDynamicJwtDecoderFactory factory() {
+        return new MultiTenantDynamicJwtDecoderFactory(registry, executor, jwkSources, cacheProperties, meterRegistry,
+                new TenantMetrics(registry, new TenantMetricsProperties(), meterRegistry));
+    }
+}
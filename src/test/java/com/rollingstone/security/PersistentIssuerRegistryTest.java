@@ -0,0 +1,131 @@
+package com.rollingstone.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+// Each "node" is its own in-memory registry over the one tenant_issuer table. The application's own node syncs
+// these tenants too, so the context is not reused by other test classes.
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext
+class PersistentIssuerRegistryTest {
+
+    @Autowired
+    private TenantIssuerStore store;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void writesReachOtherNodesThroughTheTable() {
+        DynamicIssuerRegistry a = new DynamicIssuerRegistry();
+        DynamicIssuerRegistry b = new DynamicIssuerRegistry();
+        PersistentIssuerRegistry nodeA = node(a);
+        PersistentIssuerRegistry nodeB = node(b);
+
+        nodeA.register("moved", "https://idp.test/moved-1");
+        assertThat(a.getAllIssuers()).containsEntry("moved", "https://idp.test/moved-1");
+        nodeB.sync();
+        assertThat(b.getAllIssuers()).containsEntry("moved", "https://idp.test/moved-1");
+
+        nodeB.update("moved", "https://idp.test/moved-2");
+        nodeA.sync();
+        assertThat(a.resolveTenant("https://idp.test/moved-2")).isEqualTo("moved");
+        assertThat(a.isRegistered("https://idp.test/moved-1")).isFalse();
+
+        nodeA.deregister("moved");
+        nodeB.sync();
+        assertThat(b.getAllIssuers()).doesNotContainKey("moved");
+        // A node started later loads the table as it is now
+        DynamicIssuerRegistry restarted = new DynamicIssuerRegistry();
+        node(restarted);
+        assertThat(restarted.getAllIssuers()).doesNotContainKey("moved");
+    }
+
+    @Test
+    void syncReadsOnlyRowsPastTheLastVersionApplied() {
+        DynamicIssuerRegistry b = new DynamicIssuerRegistry();
+        PersistentIssuerRegistry nodeA = node(new DynamicIssuerRegistry());
+        nodeA.register("delta-1", "https://idp.test/delta-1");
+        PersistentIssuerRegistry nodeB = node(b);
+
+        // Changed behind the registry's back, without a new change version: a full reload would pick this up
+        jdbcTemplate.update("update tenant_issuer set issuer_url = 'https://idp.test/unversioned' where tenant_id = 'delta-1'");
+        nodeA.register("delta-2", "https://idp.test/delta-2");
+        nodeB.sync();
+
+        assertThat(b.getAllIssuers()).containsEntry("delta-1", "https://idp.test/delta-1")
+                .containsEntry("delta-2", "https://idp.test/delta-2");
+    }
+
+    @Test
+    void bulkRegistrationIsOneChangeVersionAndAllOrNothing() {
+        DynamicIssuerRegistry b = new DynamicIssuerRegistry();
+        PersistentIssuerRegistry nodeA = node(new DynamicIssuerRegistry());
+        PersistentIssuerRegistry nodeB = node(b);
+        Map<String, String> tenants = new LinkedHashMap<>();
+        for (int i = 0; i < 2000; i++) {
+            tenants.put("bulk-" + i, "https://idp.test/bulk-" + i);
+        }
+
+        nodeA.registerAll(tenants);
+        nodeB.sync();
+
+        assertThat(b.getAllIssuers()).containsAllEntriesOf(tenants);
+        assertThat(jdbcTemplate.queryForObject("select count(distinct change_version) from tenant_issuer"
+                + " where tenant_id like 'bulk-%'", Integer.class)).isEqualTo(1);
+
+        Map<String, String> conflicting = new LinkedHashMap<>();
+        conflicting.put("late-1", "https://idp.test/late-1");
+        conflicting.put("late-2", "https://idp.test/bulk-7");
+        assertThatIllegalArgumentException().isThrownBy(() -> nodeB.registerAll(conflicting))
+                .withMessageContaining("bulk-7");
+        assertThat(jdbcTemplate.queryForObject("select count(*) from tenant_issuer where tenant_id like 'late-%'",
+                Integer.class)).isZero();
+    }
+
+    @Test
+    void tableOverridesConfiguredTenants() {
+        PersistentIssuerRegistry nodeA = new PersistentIssuerRegistry(store, new DynamicIssuerRegistry());
+        nodeA.load(Map.of("configured", "https://idp.test/configured"));
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> nodeA.register("other", "https://idp.test/configured"));
+
+        nodeA.deregister("configured");
+
+        DynamicIssuerRegistry restarted = new DynamicIssuerRegistry();
+        new PersistentIssuerRegistry(store, restarted).load(Map.of("configured", "https://idp.test/configured"));
+        assertThat(restarted.getAllIssuers()).doesNotContainKey("configured");
+    }
+
+    @Test
+    void rootTenantIdIsNeverWritten() {
+        DynamicIssuerRegistry a = new DynamicIssuerRegistry();
+        PersistentIssuerRegistry nodeA = node(a);
+
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> nodeA.register(TenantIdentifierResolver.ROOT, "https://idp.test/attacker"));
+        assertThatIllegalArgumentException().isThrownBy(() -> nodeA.registerAll(
+                Map.of("fine", "https://idp.test/fine", TenantIdentifierResolver.ROOT, "https://idp.test/attacker")));
+
+        assertThat(jdbcTemplate.queryForObject("select count(*) from tenant_issuer where tenant_id in ('*', 'fine')",
+                Integer.class)).isZero();
+        assertThat(a.isRegistered("https://idp.test/attacker")).isFalse();
+    }
+
+    private PersistentIssuerRegistry node(DynamicIssuerRegistry registry) {
+        PersistentIssuerRegistry node = new PersistentIssuerRegistry(store, registry);
+        node.load(Map.of());
+        return node;
+    }
+}
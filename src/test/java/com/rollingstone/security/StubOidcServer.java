@@ -0,0 +1,175 @@
+package com.rollingstone.security;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Local OIDC discovery + JWKS endpoint serving any realm under /realms/{realm},
+// publishing one (rotatable) RSA key and one P-256 EC key
+public class StubOidcServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger rotations = new AtomicInteger();
+    private volatile RSAKey signingKey;
+    private final ECKey ecSigningKey;
+    private final AtomicInteger discoveryRequests = new AtomicInteger();
+    private final AtomicInteger jwksRequests = new AtomicInteger();
+    private volatile Duration discoveryDelay = Duration.ZERO;
+    private volatile boolean available = true;
+
+    private StubOidcServer(HttpServer server, RSAKey signingKey, ECKey ecSigningKey) {
+        this.server = server;
+        this.signingKey = signingKey;
+        this.ecSigningKey = ecSigningKey;
+    }
+
+    public static StubOidcServer start() throws IOException, JOSEException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        RSAKey key = new RSAKeyGenerator(2048).keyID("stub-key").generate();
+        ECKey ecKey = new ECKeyGenerator(Curve.P_256).keyID("stub-ec-key").generate();
+        StubOidcServer stub = new StubOidcServer(server, key, ecKey);
+        server.createContext("/realms/", stub::handle);
+        server.setExecutor(stub.executor);
+        server.start();
+        return stub;
+    }
+
+    public String issuer(String realm) {
+        return "http://localhost:" + server.getAddress().getPort() + "/realms/" + realm;
+    }
+
+    public RSAKey signingKey() {
+        return signingKey;
+    }
+
+    public ECKey ecSigningKey() {
+        return ecSigningKey;
+    }
+
+    // The IdP starts signing with a new key and publishes only that one
+    public RSAKey rotateSigningKey() throws JOSEException {
+        signingKey = new RSAKeyGenerator(2048).keyID("stub-key-" + rotations.incrementAndGet()).generate();
+        return signingKey;
+    }
+
+    public void setDiscoveryDelay(Duration discoveryDelay) {
+        this.discoveryDelay = discoveryDelay;
+    }
+
+    public void setAvailable(boolean available) {
+        this.available = available;
+    }
+
+    public int discoveryRequests() {
+        return discoveryRequests.get();
+    }
+
+    public int jwksRequests() {
+        return jwksRequests.get();
+    }
+
+    public String mint(String realm) {
+        return mint(realm, claims -> {
+        });
+    }
+
+    public String mint(String realm, Consumer<JWTClaimsSet.Builder> customizer) {
+        return mint(realm, signingKey, customizer);
+    }
+
+    // RS256 for an RSA key, ES256 for a P-256 EC key
+    public String mint(String realm, JWK key, Consumer<JWTClaimsSet.Builder> customizer) {
+        JWTClaimsSet.Builder claims = new JWTClaimsSet.Builder()
+                .issuer(issuer(realm))
+                .subject("user-" + realm)
+                .issueTime(new Date())
+                .expirationTime(new Date(System.currentTimeMillis() + Duration.ofMinutes(5).toMillis()));
+        customizer.accept(claims);
+        try {
+            boolean ec = key instanceof ECKey;
+            SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(ec ? JWSAlgorithm.ES256 : JWSAlgorithm.RS256)
+                    .keyID(key.getKeyID()).build(), claims.build());
+            jwt.sign(ec ? new ECDSASigner((ECKey) key) : new RSASSASigner((RSAKey) key));
+            return jwt.serialize();
+        } catch (JOSEException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String realmPath = path.substring(0, path.indexOf('/', "/realms/".length()));
+        String issuer = "http://localhost:" + server.getAddress().getPort() + realmPath;
+        if (path.endsWith("/.well-known/openid-configuration")) {
+            discoveryRequests.incrementAndGet();
+            if (!available) {
+                exchange.sendResponseHeaders(503, -1);
+                exchange.close();
+                return;
+            }
+            sleep(discoveryDelay);
+            respond(exchange, "{\"issuer\":\"" + issuer + "\",\"jwks_uri\":\"" + issuer + "/protocol/openid-connect/certs\"}");
+        } else if (path.endsWith("/protocol/openid-connect/certs")) {
+            jwksRequests.incrementAndGet();
+            if (!available) {
+                exchange.sendResponseHeaders(503, -1);
+                exchange.close();
+                return;
+            }
+            respond(exchange, new JWKSet(List.of(signingKey.toPublicJWK(), ecSigningKey.toPublicJWK())).toString());
+        } else {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sleep(Duration delay) {
+        try {
+            Thread.sleep(delay.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
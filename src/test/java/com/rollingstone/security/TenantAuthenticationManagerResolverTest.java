@@ -0,0 +1,76 @@
+package com.rollingstone.security;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.rollingstone.config.DecoderCacheProperties;
+import com.rollingstone.config.TenantMetricsProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+// Tokens parsed while resolving the issuer must not outlive a rejected request on the (pooled) request thread
+class TenantAuthenticationManagerResolverTest {
+
+    private final DynamicIssuerRegistry registry = new DynamicIssuerRegistry();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TenantMetrics metrics = new TenantMetrics(registry, new TenantMetricsProperties(), meterRegistry);
+
+    @Test
+    void rejectedIssuerLeavesNoParsedToken() throws Exception {
+        TenantAuthenticationManagerResolver resolver = new TenantAuthenticationManagerResolver(
+                registry::resolveIssuer, managers(issuer -> {
+                    throw new AssertionError("no manager for an unknown issuer");
+                }), metrics);
+        String token = token("https://idp/unknown");
+
+        assertThatIllegalArgumentException().isThrownBy(() -> resolver.resolve(request(token)));
+
+        assertThat(JwtHelper.takeParsed(token)).isNull();
+    }
+
+    @Test
+    void unavailableDecoderLeavesNoParsedToken() throws Exception {
+        registry.register("tenant01", "https://idp/realm-1");
+        TenantAuthenticationManagerResolver resolver = new TenantAuthenticationManagerResolver(
+                registry::resolveIssuer, managers(issuer -> {
+                    throw new IllegalStateException("IdP unreachable");
+                }), metrics);
+        String token = token("https://idp/realm-1");
+
+        assertThatIllegalStateException().isThrownBy(() -> resolver.resolve(request(token)));
+
+        assertThat(JwtHelper.takeParsed(token)).isNull();
+    }
+
+    private IssuerAuthenticationManagerCache managers(Function<String, JwtDecoder> decoders) {
+        return new IssuerAuthenticationManagerCache("test", decoders, new JwtAuthenticationConverter(),
+                new DecoderCacheProperties(), meterRegistry);
+    }
+
+    private static MockHttpServletRequest request(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+
+    private static String token(String issuer) throws Exception {
+        RSAKey key = new RSAKeyGenerator(2048).keyID("k").generate();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID("k").build(),
+                new JWTClaimsSet.Builder().issuer(issuer).subject("user").build());
+        jwt.sign(new RSASSASigner(key));
+        return jwt.serialize();
+    }
+}
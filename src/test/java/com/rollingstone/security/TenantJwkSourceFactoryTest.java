@@ -0,0 +1,104 @@
+package com.rollingstone.security;
+
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.rollingstone.config.JwksProperties;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TenantJwkSourceFactoryTest {
+
+    private StubOidcServer idp;
+    private ExecutorService refreshExecutor;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final JwksProperties properties = new JwksProperties();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        idp = StubOidcServer.start();
+        refreshExecutor = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        refreshExecutor.shutdownNow();
+        idp.close();
+    }
+
+    @Test
+    void rotatedKeyIsPickedUpButUnknownKidFloodIsRateLimited() throws Exception {
+        TenantJwtDecoder decoder = decoder();
+        assertThat(decoder.decode(idp.mint("acme")).getSubject()).isEqualTo("user-acme");
+        assertThat(idp.jwksRequests()).isEqualTo(1);
+
+        idp.rotateSigningKey();
+        assertThat(decoder.decode(idp.mint("acme")).getSubject()).isEqualTo("user-acme");
+        assertThat(idp.jwksRequests()).isEqualTo(2);
+
+        RSAKey unpublished = new RSAKeyGenerator(2048).keyID("unknown").generate();
+        String forged = idp.mint("acme", unpublished, claims -> {
+        });
+        for (int i = 0; i < 20; i++) {
+            assertThatThrownBy(() -> decoder.decode(forged)).isInstanceOf(BadJwtException.class);
+        }
+        assertThat(idp.jwksRequests()).isEqualTo(2);
+        assertThat(meterRegistry.get("security.jwks.events").tag("event", "RateLimited").counter().count())
+                .isEqualTo(20);
+    }
+
+    @Test
+    void lastKnownGoodKeysAreServedWhileJwksEndpointIsDown() throws Exception {
+        properties.setCacheTtl(Duration.ofMillis(200));
+        properties.setRefreshAhead(Duration.ofMillis(50));
+        properties.setRefreshTimeout(Duration.ofMillis(50));
+        properties.setMinRefetchInterval(Duration.ofMillis(10));
+        TenantJwtDecoder decoder = decoder();
+
+        idp.setAvailable(false);
+        Thread.sleep(300);
+        assertThat(decoder.decode(idp.mint("acme")).getSubject()).isEqualTo("user-acme");
+
+        assertThat(meterRegistry.get("security.jwks.events").tag("event", "Outage").counter().count())
+                .isGreaterThanOrEqualTo(1);
+        assertThat(meterRegistry.get("security.jwks.fetch").tag("outcome", "failure").timer().count())
+                .isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void keysAreRefreshedInBackgroundBeforeTheyExpire() throws Exception {
+        properties.setCacheTtl(Duration.ofSeconds(2));
+        properties.setRefreshAhead(Duration.ofMillis(1500));
+        properties.setRefreshTimeout(Duration.ofMillis(200));
+        properties.setMinRefetchInterval(Duration.ofMillis(10));
+        TenantJwtDecoder decoder = decoder();
+        assertThat(idp.jwksRequests()).isEqualTo(1);
+
+        Thread.sleep(600);
+        decoder.decode(idp.mint("acme"));
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        Timer fetches = meterRegistry.get("security.jwks.fetch").tag("outcome", "success").timer();
+        while (fetches.count() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(fetches.count()).isEqualTo(2);
+        assertThat(idp.jwksRequests()).isEqualTo(2);
+    }
+
+    private TenantJwtDecoder decoder() {
+        TenantJwkSourceFactory jwkSources = new TenantJwkSourceFactory(properties, meterRegistry, refreshExecutor);
+        return TenantJwtDecoder.fromIssuerLocation(idp.issuer("acme"), new RestTemplate(), jwkSources);
+    }
+}
@@ -0,0 +1,102 @@
+package com.rollingstone.security;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.PlainJWT;
+import com.nimbusds.jwt.SignedJWT;
+import com.rollingstone.config.JwksProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtDecoders;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Date;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+class TenantJwtDecoderTest {
+
+    private static StubOidcServer idp;
+    private static JwtDecoder reference;
+    private static TenantJwtDecoder decoder;
+    private static final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor();
+
+    @BeforeAll
+    static void startIdp() throws Exception {
+        idp = StubOidcServer.start();
+        reference = JwtDecoders.fromIssuerLocation(idp.issuer("acme"));
+        decoder = TenantJwtDecoder.fromIssuerLocation(idp.issuer("acme"), new RestTemplate(),
+                new TenantJwkSourceFactory(new JwksProperties(), new SimpleMeterRegistry(), refreshExecutor));
+    }
+
+    @AfterAll
+    static void stopIdp() {
+        refreshExecutor.shutdownNow();
+        idp.close();
+    }
+
+    @Test
+    void decodesPreParsedTokenLikeNimbus() {
+        String token = idp.mint("acme", claims -> claims.claim("scope", "orders.read"));
+
+        assertThat(JwtHelper.extractIssuer(token)).isEqualTo(idp.issuer("acme"));
+        Jwt jwt = decoder.decode(token);
+
+        Jwt expected = reference.decode(token);
+        assertThat(jwt.getClaims()).isEqualTo(expected.getClaims());
+        assertThat(jwt.getHeaders()).isEqualTo(expected.getHeaders());
+        assertThat(JwtHelper.takeParsed(token)).isNull();
+    }
+
+    @Test
+    void rejectsExpiredToken() {
+        Date past = new Date(System.currentTimeMillis() - 600_000);
+        assertSameOutcome(idp.mint("acme", claims -> claims.issueTime(past).expirationTime(past)));
+    }
+
+    @Test
+    void rejectsForeignIssuer() {
+        assertSameOutcome(idp.mint("other"));
+    }
+
+    @Test
+    void rejectsBadSignature() throws Exception {
+        SignedJWT forged = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID("stub-key").build(),
+                new JWTClaimsSet.Builder().issuer(idp.issuer("acme")).build());
+        forged.sign(new RSASSASigner(new RSAKeyGenerator(2048).generate()));
+        assertSameOutcome(forged.serialize());
+    }
+
+    @Test
+    void rejectsUnsignedAndMalformedTokens() {
+        assertSameOutcome(new PlainJWT(new JWTClaimsSet.Builder().issuer(idp.issuer("acme")).build()).serialize());
+        assertSameOutcome("not-a-jwt");
+    }
+
+    private static void assertSameOutcome(String token) {
+        Throwable expected = catchThrowable(() -> reference.decode(token));
+        Throwable actual = catchThrowable(() -> decodePreParsed(token));
+
+        assertThat(expected).isNotNull();
+        assertThat(actual).isExactlyInstanceOf(expected.getClass()).hasMessage(expected.getMessage());
+    }
+
+    private static void decodePreParsed(String token) {
+        try {
+            JwtHelper.extractIssuer(token);
+        } catch (RuntimeException unparseable) {
+            // the resolver rejects these first; the decoder's own parse must still agree with Nimbus
+        }
+        decoder.decode(token);
+    }
+}
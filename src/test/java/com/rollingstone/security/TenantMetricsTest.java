@@ -0,0 +1,61 @@
+package com.rollingstone.security;
+
+import com.rollingstone.config.TenantMetricsProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2ErrorCodes;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TenantMetricsTest {
+
+    private final DynamicIssuerRegistry registry = new DynamicIssuerRegistry();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void tenantTagsAreBoundedAndNeverTakenFromTheToken() {
+        TenantMetricsProperties properties = new TenantMetricsProperties();
+        properties.setMaxTaggedTenants(2);
+        properties.setPinnedTenants(List.of("vip"));
+        for (String tenant : List.of("t1", "t2", "t3", "vip")) {
+            registry.register(tenant, "https://idp/" + tenant);
+        }
+        TenantMetrics metrics = new TenantMetrics(registry, properties, meterRegistry);
+
+        assertThat(metrics.tenantTag("https://idp/t1")).isEqualTo("t1");
+        assertThat(metrics.tenantTag("https://idp/t2")).isEqualTo("t2");
+        assertThat(metrics.tenantTag("https://idp/t3")).isEqualTo("other");
+        assertThat(metrics.tenantTag("https://idp/vip")).isEqualTo("vip");
+        assertThat(metrics.tenantTag("https://attacker/" + System.nanoTime())).isEqualTo("unknown");
+        assertThat(metrics.tenantTag(null)).isEqualTo("unknown");
+
+        metrics.recordIssuerExtraction("https://idp/t3", System.nanoTime());
+        assertThat(meterRegistry.get("security.auth.issuer.extraction").tag("tenant", "other")
+                .tag("issuer", "other").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("security.auth.issuer.extraction").timers()).hasSize(5);
+    }
+
+    @Test
+    void instrumentedDecoderCountsRejectionsByReason() {
+        registry.register("t1", "https://idp/t1");
+        TenantMetrics metrics = new TenantMetrics(registry, new TenantMetricsProperties(), meterRegistry);
+        OAuth2Error expired = new OAuth2Error(OAuth2ErrorCodes.INVALID_TOKEN, "Jwt expired at 2024-01-01T00:00:00Z", null);
+        JwtDecoder failing = token -> {
+            throw new JwtValidationException("expired", List.of(expired));
+        };
+
+        JwtDecoder decoder = metrics.instrument("https://idp/t1", failing);
+        assertThatThrownBy(() -> decoder.decode("token")).isInstanceOf(JwtValidationException.class);
+
+        assertThat(meterRegistry.get("security.auth.failures").tag("tenant", "t1").tag("reason", "expired")
+                .counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("security.auth.verification").tag("tenant", "t1").tag("outcome", "failure")
+                .timer().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,68 @@
+package com.rollingstone.security;
+
+import com.rollingstone.config.TokenCacheProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VerifiedTokenCacheTest {
+
+    private final AtomicInteger verifications = new AtomicInteger();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final DynamicIssuerRegistry issuerRegistry = new DynamicIssuerRegistry();
+
+    @Test
+    void verifiesEachTokenOnceUntilInvalidated() {
+        JwtDecoder decoder = cache(true).decorate(token -> jwt(token, "https://idp/realm-1", Instant.now().plusSeconds(60)));
+
+        decoder.decode("token-a");
+        decoder.decode("token-a");
+        decoder.decode("token-b");
+        assertThat(verifications).hasValue(2);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "verifiedTokens").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+
+        issuerRegistry.register("tenant01", "https://idp/realm-1");
+        issuerRegistry.register("tenant01", "https://idp/realm-2");
+        decoder.decode("token-a");
+        assertThat(verifications).hasValue(3);
+    }
+
+    @Test
+    void neverServesTokenPastItsExpiry() {
+        JwtDecoder decoder = cache(true).decorate(token -> jwt(token, "https://idp/realm-1", Instant.now().minusSeconds(1)));
+
+        decoder.decode("expired");
+        decoder.decode("expired");
+        assertThat(verifications).hasValue(2);
+    }
+
+    @Test
+    void disabledCacheReturnsDecoderAsIs() {
+        JwtDecoder decoder = token -> jwt(token, "https://idp/realm-1", Instant.now().plusSeconds(60));
+
+        assertThat(cache(false).decorate(decoder)).isSameAs(decoder);
+    }
+
+    private VerifiedTokenCache cache(boolean enabled) {
+        TokenCacheProperties properties = new TokenCacheProperties();
+        properties.setEnabled(enabled);
+        return new VerifiedTokenCache(properties, issuerRegistry, meterRegistry);
+    }
+
+    private Jwt jwt(String token, String issuer, Instant expiresAt) {
+        verifications.incrementAndGet();
+        return Jwt.withTokenValue(token)
+                .header("alg", "RS256")
+                .issuer(issuer)
+                .issuedAt(expiresAt.minusSeconds(300))
+                .expiresAt(expiresAt)
+                .build();
+    }
+}
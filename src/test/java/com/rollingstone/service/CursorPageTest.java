@@ -0,0 +1,35 @@
+package com.rollingstone.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class CursorPageTest {
+
+    private static final ToLongFunction<Long> ID = Long::longValue;
+
+    @Test
+    void extraRowYieldsCursorThatSeeksPastLastItem() {
+        CursorPage<Long> page = CursorPage.of(List.of(11L, 12L, 13L), 2, ID);
+
+        assertThat(page.items()).containsExactly(11L, 12L);
+        assertThat(page.nextCursor()).isNotNull();
+        assertThat(CursorPage.decode(page.nextCursor())).isEqualTo(12L);
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        assertThat(CursorPage.of(List.of(11L, 12L), 2, ID).nextCursor()).isNull();
+        assertThat(CursorPage.decode(null)).isEqualTo(CursorPage.FIRST);
+    }
+
+    @Test
+    void tamperedCursorIsRejected() {
+        assertThatIllegalArgumentException().isThrownBy(() -> CursorPage.decode("not base64!"));
+        assertThatIllegalArgumentException().isThrownBy(() -> CursorPage.decode("LTU"));
+    }
+}
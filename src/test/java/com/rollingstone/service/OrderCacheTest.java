@@ -0,0 +1,158 @@
+package com.rollingstone.service;
+
+import com.rollingstone.config.OrderCacheProperties;
+import com.rollingstone.model.OrderHeader;
+import com.rollingstone.security.DynamicIssuerRegistry;
+import com.rollingstone.security.TenantIdentifierResolver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.rollingstone.service.OrderFixtures.order;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class OrderCacheTest {
+
+    private final ThreadLocal<String> tenant = ThreadLocal.withInitial(() -> "tenant01");
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final List<String> invalidations = new ArrayList<>();
+    private OrderCache cache;
+
+    @BeforeEach
+    void setUp() {
+        TenantIdentifierResolver resolver = new TenantIdentifierResolver(new DynamicIssuerRegistry()) {
+            @Override
+            public String resolveCurrentTenantIdentifier() {
+                return tenant.get();
+            }
+        };
+        cache = new OrderCache(new OrderCacheProperties(), resolver, meterRegistry);
+        cache.addListener((tenantId, orderId) -> invalidations.add(tenantId + "/" + orderId));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Optional<OrderHeader>>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(callers.submit(() -> cache.order(1L, () -> {
+                    loads.incrementAndGet();
+                    await(loading);
+                    return Optional.of(order("ORD-1", "C1", 1));
+                })));
+            }
+            Thread.sleep(100);
+            loading.countDown();
+            for (Future<Optional<OrderHeader>> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).get().extracting(OrderHeader::getOrderNumber).isEqualTo("ORD-1");
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        assertThat(loads).hasValue(1);
+        assertThat(meterRegistry.get("order.cache.hit.ratio").tag("cache", "orders").gauge().value()).isEqualTo(7 / 8.0);
+    }
+
+    @Test
+    void entriesAreKeptPerTenant() {
+        cache.order(1L, () -> load("ORD-1"));
+        tenant.set("tenant02");
+
+        assertThat(cache.order(1L, Optional::empty)).isEmpty();
+        tenant.set("tenant01");
+        assertThat(cache.order(1L, () -> load("other"))).get().extracting(OrderHeader::getOrderNumber).isEqualTo("ORD-1");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void absentOrdersAndFailedLoadsAreNotCached() {
+        assertThat(cache.order(1L, Optional::empty)).isEmpty();
+        assertThatIllegalStateException().isThrownBy(() -> cache.order(1L, () -> {
+            throw new IllegalStateException("database down");
+        }));
+
+        assertThat(cache.order(1L, () -> load("ORD-1"))).isPresent();
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void writesInvalidateTheOwnersAndRootEntriesAndTellListeners() {
+        cache.order(1L, () -> load("ORD-1"));
+        tenant.set(TenantIdentifierResolver.ROOT);
+        cache.order(1L, () -> load("ORD-1"));
+        tenant.set("tenant01");
+        cache.lines(1L, () -> Optional.of(new OrderLines(0, List.of())));
+
+        cache.invalidate("tenant01", 1L);
+
+        cache.order(1L, () -> load("ORD-1"));
+        tenant.set(TenantIdentifierResolver.ROOT);
+        cache.order(1L, () -> load("ORD-1"));
+        assertThat(loads).hasValue(4);
+        assertThat(invalidations).containsExactly("tenant01/1");
+    }
+
+    @Test
+    void remoteEvictionsAreNotEchoed() {
+        cache.order(1L, () -> load("ORD-1"));
+
+        cache.evict(null, 1L);
+
+        cache.order(1L, () -> load("ORD-1"));
+        assertThat(loads).hasValue(2);
+        assertThat(invalidations).isEmpty();
+    }
+
+    @Test
+    void invalidationInsideATransactionWaitsForCommit() {
+        cache.order(1L, () -> load("ORD-1"));
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.invalidate(1L);
+        cache.order(1L, () -> load("ORD-1"));
+        assertThat(loads).hasValue(1);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        cache.order(1L, () -> load("ORD-1"));
+        assertThat(loads).hasValue(2);
+        assertThat(invalidations).containsExactly("tenant01/1");
+    }
+
+    private Optional<OrderHeader> load(String orderNumber) {
+        loads.incrementAndGet();
+        return Optional.of(order(orderNumber, "C1", 1));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
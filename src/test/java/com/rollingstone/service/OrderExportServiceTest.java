@@ -0,0 +1,123 @@
+package com.rollingstone.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rollingstone.security.DynamicIssuerRegistry;
+import com.rollingstone.security.TenantIdentifierResolver;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.AutoConfigureJson;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@AutoConfigureJson
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+// Without a JWT the tenant resolver hands out the root tenant, which sees every row; OrderHeader's entity
+// listener needs the status counters
+@Import({OrderExportService.class, TenantIdentifierResolver.class, DynamicIssuerRegistry.class,
+        OrderStatusCounters.class})
+// Each export runs in its own read-only transaction, as it does behind the controller
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderExportServiceTest {
+
+    private static final int ROWS = 1_000_000;
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Autowired
+    private OrderExportService exportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void seed() {
+        Integer existing = jdbcTemplate.queryForObject("select count(*) from order_header", Integer.class);
+        if (existing != null && existing == ROWS) {
+            return;
+        }
+        // order X: customer C<X mod 1000>, status by X mod 4, placed X minutes after START
+        // system_range's column is upper-case X, so it needs quoting under DATABASE_TO_LOWER
+        jdbcTemplate.update("insert into order_header (tenant_id, order_id, order_number, customer_number,"
+                + " order_date, order_status, order_total, currency)"
+                + " select 'tenant01', \"X\", 'ORD-' || \"X\", 'C' || mod(\"X\", 1000),"
+                + " dateadd('MINUTE', \"X\", timestamp '2024-01-01 00:00:00'),"
+                + " case mod(\"X\", 4) when 0 then 'NEW' when 1 then 'PAID' when 2 then 'SHIPPED' else 'CANCELLED' end,"
+                + " mod(\"X\", 500) + 0.99, 'USD'"
+                + " from system_range(1, " + ROWS + ")");
+    }
+
+    @Test
+    void exportsEveryRowWithoutGrowingThePersistenceContext() throws Exception {
+        LineCountingOutputStream out = new LineCountingOutputStream();
+
+        long written = exportService.exportOrders(null, null, null, null, out);
+
+        assertThat(written).isEqualTo(ROWS);
+        assertThat(out.lines).isEqualTo(ROWS);
+        assertThat(out.maxManagedEntities).isLessThanOrEqualTo(1000);
+    }
+
+    @Test
+    void filtersByStatusCustomerAndDateRange() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = exportService.exportOrders("PAID", "C1",
+                START.plusMinutes(1), START.plusMinutes(100_001), out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(written).isEqualTo(100);
+        assertThat(lines).hasSize(100);
+        for (String line : lines) {
+            JsonNode order = objectMapper.readTree(line);
+            assertThat(order.get("customerNumber").asText()).isEqualTo("C1");
+            assertThat(order.get("orderStatus").asText()).isEqualTo("PAID");
+            assertThat(order.has("orderLines")).isFalse();
+        }
+    }
+
+    // Discards the export, counting lines and sampling how many entities the session holds as it goes
+    private final class LineCountingOutputStream extends OutputStream {
+
+        private long lines;
+        private int maxManagedEntities;
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                write(b[i]);
+            }
+            int managed = entityManager.unwrap(Session.class).getStatistics().getEntityCount();
+            maxManagedEntities = Math.max(maxManagedEntities, managed);
+        }
+    }
+}
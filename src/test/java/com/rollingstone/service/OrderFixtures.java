@@ -0,0 +1,40 @@
+package com.rollingstone.service;
+
+import com.rollingstone.model.OrderHeader;
+import com.rollingstone.model.OrderLine;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// New, unsaved orders with every required column filled in
+public final class OrderFixtures {
+
+    private OrderFixtures() {
+    }
+
+    public static OrderHeader order(String orderNumber, String customerNumber, int lines) {
+        OrderHeader order = new OrderHeader();
+        order.setOrderNumber(orderNumber);
+        order.setCustomerNumber(customerNumber);
+        order.setOrderDate(LocalDateTime.of(2024, 1, 1, 12, 0));
+        order.setOrderStatus("NEW");
+        order.setOrderTotal(BigDecimal.valueOf(10L * lines));
+        order.setCurrency("USD");
+        List<OrderLine> orderLines = new ArrayList<>();
+        for (int i = 1; i <= lines; i++) {
+            OrderLine line = new OrderLine();
+            line.setOrderHeader(order);
+            line.setLineNumber(i);
+            line.setProductId("P" + i);
+            line.setQuantity(BigDecimal.ONE);
+            line.setUom("EA");
+            line.setUnitPrice(BigDecimal.TEN);
+            line.setItemTotal(BigDecimal.TEN);
+            orderLines.add(line);
+        }
+        order.setOrderLines(orderLines);
+        return order;
+    }
+}
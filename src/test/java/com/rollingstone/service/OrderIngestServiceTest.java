@@ -0,0 +1,125 @@
+package com.rollingstone.service;
+
+import com.rollingstone.config.IngestProperties;
+import com.rollingstone.model.OrderHeader;
+import com.rollingstone.security.DynamicIssuerRegistry;
+import com.rollingstone.security.TenantIdentifierResolver;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static com.rollingstone.service.OrderFixtures.order;
+import static com.rollingstone.service.OrderTestSupport.clearedStatistics;
+import static com.rollingstone.service.OrderTestSupport.deleteOrders;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+// Without a JWT the tenant resolver hands out the root tenant; OrderHeader's entity listener needs the counters
+@Import({TenantIdentifierResolver.class, DynamicIssuerRegistry.class, OrderStatusCounters.class})
+// Chunks commit in transactions of their own
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderIngestServiceTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private OrderIngestService ingestService;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        deleteOrders(jdbcTemplate);
+        IngestProperties properties = new IngestProperties();
+        properties.setChunkSize(50);
+        ingestService = new OrderIngestService(entityManager, transactionManager, properties);
+        statistics = clearedStatistics(entityManagerFactory);
+    }
+
+    @Test
+    void storesOrdersAndLinesInBatchedChunks() {
+        List<OrderHeader> orders = IntStream.range(0, 120).mapToObj(i -> order("ORD-" + i, "C1", 3)).toList();
+
+        List<OrderIngestResult> results = ingestService.ingest(orders.iterator());
+
+        assertThat(results).hasSize(120).allSatisfy(result -> {
+            assertThat(result.error()).isNull();
+            assertThat(result.orderId()).isNotNull();
+        });
+        assertThat(results).extracting(OrderIngestResult::index).containsExactlyElementsOf(IntStream.range(0, 120).boxed().toList());
+        assertThat(jdbcTemplate.queryForObject("select count(*) from order_header", Integer.class)).isEqualTo(120);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from order_line", Integer.class)).isEqualTo(360);
+        // 480 rows: a few batched insert statements per chunk plus id allocator round trips, not one per row
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(40);
+    }
+
+    @Test
+    void badOrdersFailAloneAndTheRestOfTheirChunkIsStored() {
+        List<OrderHeader> orders = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            orders.add(order("ORD-" + i, "C1", 2));
+        }
+        orders.get(3).setCustomerNumber(null);
+        orders.get(7).setOrderNumber("ORD-0");
+
+        List<OrderIngestResult> results = ingestService.ingest(orders.iterator());
+
+        assertThat(results).hasSize(10);
+        assertThat(results).filteredOn(result -> result.error() != null)
+                .extracting(OrderIngestResult::index).containsExactly(3, 7);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from order_header", Integer.class)).isEqualTo(8);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from order_line", Integer.class)).isEqualTo(16);
+    }
+
+    @Test
+    void unreadableInputKeepsWhatWasReadBeforeIt() {
+        Iterator<OrderHeader> orders = new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == 3) {
+                    throw new IllegalStateException("Unexpected end-of-input");
+                }
+                return true;
+            }
+
+            @Override
+            public OrderHeader next() {
+                return order("ORD-" + next++, "C1", 1);
+            }
+        };
+
+        List<OrderIngestResult> results = ingestService.ingest(orders);
+
+        assertThat(results).hasSize(4);
+        assertThat(results.get(3).error()).contains("Unexpected end-of-input");
+        assertThat(jdbcTemplate.queryForObject("select count(*) from order_header", Integer.class)).isEqualTo(3);
+    }
+}
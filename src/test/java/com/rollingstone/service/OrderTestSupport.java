@@ -0,0 +1,57 @@
+package com.rollingstone.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.JwtRequestPostProcessor;
+
+import java.time.LocalDateTime;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+
+// Orders and lines written straight to the tables, bypassing the entities, and tokens from each test tenant's issuer
+public final class OrderTestSupport {
+
+    public static final String TENANT01_ISSUER = "http://0.0.0.0:8080/realms/multitannt-realm-1";
+    public static final String TENANT02_ISSUER = "http://0.0.0.0:8080/realms/multitannt-realm-2";
+
+    // Shared: add authorities to a fresh jwt() rather than to these
+    public static final JwtRequestPostProcessor TENANT01 = jwt().jwt(token -> token.issuer(TENANT01_ISSUER));
+    public static final JwtRequestPostProcessor TENANT02 = jwt().jwt(token -> token.issuer(TENANT02_ISSUER));
+
+    public static final LocalDateTime ORDER_DATE = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private OrderTestSupport() {
+    }
+
+    public static void deleteOrders(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.update("delete from order_line");
+        jdbcTemplate.update("delete from order_header");
+    }
+
+    public static void insertOrder(JdbcTemplate jdbcTemplate, String tenantId, long orderId, String status) {
+        insertOrder(jdbcTemplate, tenantId, orderId, "ORD-" + orderId, status, ORDER_DATE);
+    }
+
+    public static void insertOrder(JdbcTemplate jdbcTemplate, String tenantId, long orderId, String orderNumber,
+                                   String status, LocalDateTime orderDate) {
+        jdbcTemplate.update("insert into order_header (tenant_id, order_id, order_number, customer_number,"
+                + " order_date, order_status, order_total, currency) values (?, ?, ?, 'C1', ?, ?, 10, 'USD')",
+                tenantId, orderId, orderNumber, orderDate, status);
+    }
+
+    public static void insertLine(JdbcTemplate jdbcTemplate, String tenantId, long orderLineId, long orderId,
+                                  int lineNumber) {
+        jdbcTemplate.update("insert into order_line (tenant_id, order_line_id, order_id, line_number, product_id,"
+                + " quantity, uom, unit_price, item_total) values (?, ?, ?, ?, 'P1', 1, 'EA', 10, 10)",
+                tenantId, orderLineId, orderId, lineNumber);
+    }
+
+    // Hibernate's statistics (enabled in the test profile), cleared so they count from here
+    public static Statistics clearedStatistics(EntityManagerFactory entityManagerFactory) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}